@@ -0,0 +1,9 @@
+-- a statement that goes through every stage of the formatter
+select a.id, b.name as "Name", count(*), max(c.total) /* largest */
+  from accounts a
+  inner join (select id, name from customers where status in ('A', 'B''s')) b on a.id = b.id
+  left outer join orders c on c.account_id = a.id and c.placed > '2013-01-01'
+ where a.balance between 10 and 100 or exists (select 1 from holds h where h.account_id = a.id)
+ group by a.id, b.name
+ having count(*) > 1
+ order by 2 desc
@@ -0,0 +1,228 @@
+/*
+ * Copyright 2004-2013, Sualeh Fatehi <sualeh@hotmail.com>
+ * This work is licensed under the Creative Commons Attribution-Noncommercial-No Derivative Works 3.0 License.
+ * To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/3.0/
+ * or send a letter to Creative Commons, 543 Howard Street, 5th Floor, San Francisco, California, 94105, USA.
+ */
+package simplesqlformatter;
+
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Measures the startup of the command line, which JMH cannot do, since
+ * each run needs a new JVM. Each mode is started a number of times, and
+ * the median time to the first byte of output and to the exit of the
+ * JVM are reported, along with the number of classes loaded, and how
+ * many of them are from Swing, the look and feel, and the flight
+ * recorder. Give a second classpath, such as that of an older build,
+ * to compare the two. Set the system property
+ * <code>startup.archive</code> to a class data sharing archive to
+ * compare startup with and without the archive; the archive must have
+ * been made with the same classpath.
+ *
+ * @author Sualeh Fatehi
+ */
+public final class StartupBenchmark
+{
+
+  private static final String STATEMENT = "select a, b from t where c = 1\n";
+  private static final String SCRIPT = "select a from t;\nupdate t set a = 1;\n";
+
+  private static final String[][] MODES = {
+      {
+          "console", STATEMENT, "-console"
+      }, {
+          "script", SCRIPT, "-script", "-parallelism=1"
+      }, {
+          "help", "", "-h"
+      },
+  };
+
+  private static final String[] NO_OPTIONS = new String[0];
+
+  private static final String[] GUI_PACKAGES = {
+      "javax.swing.", "java.awt.", "sun.awt.", "com.jgoodies."
+  };
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args
+   *        Classpath of the formatter to measure, and optionally a
+   *        classpath of a baseline to compare with
+   * @throws Exception
+   *         On an exception starting a JVM
+   */
+  public static void main(final String[] args)
+    throws Exception
+  {
+    if (args.length == 0)
+    {
+      System.out.println("Usage: StartupBenchmark <classpath> [<baseline classpath>]");
+      return;
+    }
+    final int runs = Integer.getInteger("startup.runs", 10);
+
+    System.out.println(String
+      .format("%-10s %-9s %12s %12s %8s %6s %6s",
+              "mode",
+              "build",
+              "first (ms)",
+              "exit (ms)",
+              "classes",
+              "gui",
+              "jfr"));
+    final String archive = System.getProperty("startup.archive");
+    for (final String[] mode: MODES)
+    {
+      for (int i = args.length - 1; i >= 0; i--)
+      {
+        final String build = i == 0? "current": "baseline";
+        measure(mode, build, args[i], NO_OPTIONS, runs);
+      }
+      if (archive != null)
+      {
+        measure(mode, "cds", args[0], new String[] {
+            "-XX:SharedArchiveFile=" + archive,
+            "-Xlog:disable",
+            "-Xlog:all=warning:stderr"
+        }, runs);
+      }
+    }
+  }
+
+  private static String java()
+  {
+    return System.getProperty("java.home") + File.separator + "bin" +
+           File.separator + "java";
+  }
+
+  private static void measure(final String[] mode,
+                              final String build,
+                              final String classpath,
+                              final String[] options,
+                              final int runs)
+    throws Exception
+  {
+    final long[] firstOutput = new long[runs];
+    final long[] exit = new long[runs];
+    for (int run = 0; run < runs; run++)
+    {
+      final long[] times = run(mode, classpath, options, null);
+      firstOutput[run] = times[0];
+      exit[run] = times[1];
+    }
+    Arrays.sort(firstOutput);
+    Arrays.sort(exit);
+
+    // classes are counted in a run of their own, since logging them
+    // slows down startup
+    final Path classLog = Files.createTempFile("classes", ".log");
+    int classes = 0;
+    int gui = 0;
+    int jfr = 0;
+    try
+    {
+      run(mode, classpath, options, classLog);
+      for (final String line: Files.readAllLines(classLog))
+      {
+        final int start = line.indexOf("] ");
+        final int end = line.indexOf(" source:");
+        if (start == -1 || end == -1)
+        {
+          continue;
+        }
+        final String className = line.substring(start + 2, end);
+        classes++;
+        for (final String guiPackage: GUI_PACKAGES)
+        {
+          if (className.startsWith(guiPackage))
+          {
+            gui++;
+          }
+        }
+        if (className.startsWith("jdk.jfr."))
+        {
+          jfr++;
+        }
+      }
+    }
+    finally
+    {
+      Files.deleteIfExists(classLog);
+    }
+
+    System.out.println(String.format("%-10s %-9s %12.1f %12.1f %8d %6d %6d",
+                                     mode[0],
+                                     build,
+                                     firstOutput[runs / 2] / 1e6,
+                                     exit[runs / 2] / 1e6,
+                                     classes,
+                                     gui,
+                                     jfr));
+  }
+
+  /**
+   * Starts a JVM, feeds it the input, and times the first byte of
+   * output, and the exit.
+   */
+  private static long[] run(final String[] mode,
+                            final String classpath,
+                            final String[] options,
+                            final Path classLog)
+    throws IOException, InterruptedException
+  {
+    final List<String> command = new ArrayList<String>();
+    command.add(java());
+    command.addAll(Arrays.asList(options));
+    if (classLog != null)
+    {
+      command.add("-Xlog:class+load:file=" + classLog);
+    }
+    command.add("-cp");
+    command.add(classpath);
+    command.add("simplesqlformatter.Main");
+    command.addAll(Arrays.asList(mode).subList(2, mode.length));
+
+    final long start = System.nanoTime();
+    final Process process = new ProcessBuilder(command)
+      .redirectError(ProcessBuilder.Redirect.DISCARD).start();
+    try (final OutputStream in = process.getOutputStream())
+    {
+      in.write(mode[1].getBytes(StandardCharsets.UTF_8));
+    }
+    long firstOutput = -1;
+    try (final InputStream out = process.getInputStream())
+    {
+      final byte[] buffer = new byte[8192];
+      int read;
+      while ((read = out.read(buffer)) != -1)
+      {
+        if (firstOutput == -1 && read > 0)
+        {
+          firstOutput = System.nanoTime() - start;
+        }
+      }
+    }
+    process.waitFor();
+    final long exit = System.nanoTime() - start;
+    return new long[] {
+        firstOutput == -1? exit: firstOutput, exit
+    };
+  }
+
+  private StartupBenchmark()
+  {
+  }
+
+}
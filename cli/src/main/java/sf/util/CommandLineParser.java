@@ -535,11 +535,16 @@ public final class CommandLineParser
         valueArg = currentArg.substring(equalsPos + 1);
         currentArg = currentArg.substring(0, equalsPos);
       }
+      // handle --arg, in the same way as -arg
+      if (currentArg.startsWith(DASH + DASH))
+      {
+        currentArg = currentArg.substring(1);
+      }
 
       final BaseOption<?> option = (BaseOption<?>) optionsMap.get(currentArg);
       if (option == null)
       {
-        otherArgs.add(currentArg);
+        otherArgs.add(args[position]);
         position++;
         continue;
       }
@@ -571,8 +576,12 @@ public final class CommandLineParser
         if (position < args.length)
         {
           valueArg = args[position];
-          // If this is not an argument, backtrack
-          if (valueArg.startsWith(DASH))
+          // If this is not an argument, backtrack; booleans only take
+          // true or false, so that a switch can come before a file name
+          if (valueArg.startsWith(DASH) ||
+              option instanceof BooleanOption &&
+              !valueArg.equalsIgnoreCase("true") &&
+              !valueArg.equalsIgnoreCase("false"))
           {
             position--;
             valueArg = null;
@@ -0,0 +1,443 @@
+/*
+ * Copyright 2004-2013, Sualeh Fatehi <sualeh@hotmail.com>
+ * This work is licensed under the Creative Commons Attribution-Noncommercial-No Derivative Works 3.0 License.
+ * To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/3.0/
+ * or send a letter to Creative Commons, 543 Howard Street, 5th Floor, San Francisco, California, 94105, USA.
+ */
+package simplesqlformatter;
+
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+import simplesqlformatter.formatter.SQLFormatter;
+
+/**
+ * Formats many SQL script files in one run. Files are named directly,
+ * by a directory, which stands for all the .sql files under it, or by a
+ * glob pattern, such as sql/**&#47;*.sql. Files are read, formatted and
+ * written in parallel, and the report is in the order of the file
+ * names. Each file is formatted as a script, and ends with a line
+ * separator. A file is only formatted in place if the formatted SQL has
+ * the same tokens as the original, and it is replaced in one step. With
+ * a {@link FormattedCache}, files whose contents are known to be
+ * formatted are not parsed again.
+ *
+ * @author Sualeh Fatehi
+ */
+final class BatchCommand
+{
+
+  /**
+   * What to do with each formatted file.
+   */
+  enum Mode
+  {
+    /** Write the formatted files to stdout. */
+    PRINT,
+    /** Report the files that are not formatted. */
+    CHECK,
+    /** Show the changes that formatting would make. */
+    DIFF,
+    /** Format the files in place, unless that would change their SQL. */
+    IN_PLACE,
+  }
+
+  /**
+   * Formatted text of one file, or the reason that the file could not
+   * be formatted.
+   */
+  private static final class Result
+  {
+
+    final boolean changed;
+    final String output;
+    final String error;
+    final FormattedCache.Key formatted;
+
+    Result(final boolean changed,
+           final String output,
+           final String error,
+           final FormattedCache.Key formatted)
+    {
+      this.changed = changed;
+      this.output = output;
+      this.error = error;
+      this.formatted = formatted;
+    }
+
+  }
+
+  /** Exit status when some files are not formatted, with -check. */
+  static final int NOT_FORMATTED = 1;
+  /** Exit status when some files could not be read or formatted. */
+  static final int FAILED = 2;
+
+  private static final String GLOB_CHARACTERS = "*?[{";
+
+  private final SQLFormatter formatter = new SQLFormatter();
+  private final Mode mode;
+  private final Path cacheFile;
+  private FormattedCache cache;
+
+  /**
+   * Creates a command to format SQL script files.
+   *
+   * @param mode
+   *        What to do with each formatted file
+   * @param cacheFile
+   *        File that records the contents that are known to be
+   *        formatted, so that unchanged files are not formatted again;
+   *        or null for none
+   */
+  BatchCommand(final Mode mode, final Path cacheFile)
+  {
+    if (mode == null)
+    {
+      throw new IllegalArgumentException("No mode provided");
+    }
+    this.mode = mode;
+    this.cacheFile = cacheFile;
+  }
+
+  /**
+   * Formats the named files.
+   *
+   * @param names
+   *        Files, directories or glob patterns
+   * @param parallelism
+   *        Number of threads to format files on
+   * @param out
+   *        Writer for formatted files, diffs and the report
+   * @param err
+   *        Writer for files that cannot be formatted
+   * @return Exit status; 0 on success, {@link #NOT_FORMATTED} if
+   *         checking finds files that are not formatted, and
+   *         {@link #FAILED} if any file cannot be formatted
+   * @throws IOException
+   *         On an exception listing the files
+   */
+  int run(final List<String> names,
+          final int parallelism,
+          final PrintWriter out,
+          final PrintWriter err)
+    throws IOException
+  {
+    final List<Path> files = new ArrayList<Path>(expand(names));
+    if (cacheFile != null)
+    {
+      cache = new FormattedCache(cacheFile, formatter.getOptions());
+    }
+    final List<Result> results = ParallelFiles
+      .run(files, parallelism, new ParallelFiles.FileTask<Result>()
+      {
+        @Override
+        public Result apply(final Path file)
+        {
+          return format(file);
+        }
+      });
+
+    int changedFiles = 0;
+    int failedFiles = 0;
+    for (int i = 0; i < results.size(); i++)
+    {
+      final Path file = files.get(i);
+      final Result result = results.get(i);
+      if (result.error != null)
+      {
+        failedFiles++;
+        err.println(file + ": " + result.error);
+        continue;
+      }
+      if (result.changed)
+      {
+        changedFiles++;
+      }
+      if (cache != null && result.formatted != null)
+      {
+        cache.add(result.formatted);
+      }
+      switch (mode)
+      {
+        case PRINT:
+        case DIFF:
+          out.print(result.output);
+          break;
+        case CHECK:
+          if (result.changed)
+          {
+            out.println(file + ": would be reformatted");
+          }
+          break;
+        case IN_PLACE:
+          if (result.changed)
+          {
+            out.println(file + ": reformatted");
+          }
+          break;
+        default:
+          break;
+      }
+    }
+    if (mode == Mode.CHECK || mode == Mode.IN_PLACE)
+    {
+      out.println((mode == Mode.CHECK? "Not formatted: ": "Reformatted: ") +
+                  changedFiles + " of " + files.size() + " files");
+    }
+    if (cache != null)
+    {
+      try
+      {
+        cache.save();
+      }
+      catch (final IOException e)
+      {
+        // the cache only saves time, so the run does not fail
+        err.println(cacheFile + ": cannot save the cache, " + e);
+      }
+    }
+    out.flush();
+    err.flush();
+
+    if (failedFiles > 0)
+    {
+      return FAILED;
+    }
+    if (mode == Mode.CHECK && changedFiles > 0)
+    {
+      return NOT_FORMATTED;
+    }
+    return 0;
+  }
+
+  /**
+   * Turns files, directories and glob patterns into a sorted set of
+   * files, so that a file named twice is formatted once.
+   */
+  private Set<Path> expand(final List<String> names)
+    throws IOException
+  {
+    final Set<Path> files = new TreeSet<Path>();
+    for (final String name: names)
+    {
+      if (isGlob(name))
+      {
+        glob(name, files);
+      }
+      else
+      {
+        final Path path = Paths.get(name);
+        if (Files.isDirectory(path))
+        {
+          ParallelFiles.list(path, ".sql", files);
+        }
+        else if (Files.exists(path))
+        {
+          files.add(path);
+        }
+        else
+        {
+          throw new IOException("No such file or directory, " + name);
+        }
+      }
+    }
+    return files;
+  }
+
+  private Result format(final Path file)
+  {
+    try
+    {
+      final byte[] contents = Files.readAllBytes(file);
+      FormattedCache.Key key = null;
+      if (cache != null)
+      {
+        key = cache.key(contents);
+        if (cache.contains(key))
+        {
+          // known to be formatted, so skip the parse
+          return new Result(false,
+                            mode == Mode.PRINT? ParallelFiles
+                              .decode(contents): "",
+                            null,
+                            key);
+        }
+      }
+
+      final String source = ParallelFiles.decode(contents);
+      final String formatted = formatScript(source);
+      final boolean changed = !formatted.equals(source);
+      if (changed)
+      {
+        key = null;
+      }
+
+      switch (mode)
+      {
+        case PRINT:
+          return new Result(changed, formatted, null, key);
+        case DIFF:
+          return new Result(changed, LineDiff.diff(file.toString(),
+                                                   file.toString(),
+                                                   source,
+                                                   formatted), null, key);
+        case IN_PLACE:
+          if (changed)
+          {
+            if (!formatter.isEquivalent(source, formatted))
+            {
+              // never write over a file with SQL that means something
+              // else
+              return new Result(false,
+                                null,
+                                "formatting would change the SQL, not written",
+                                null);
+            }
+            final byte[] bytes = formatted.getBytes(StandardCharsets.UTF_8);
+            write(file, bytes);
+            // the written text is only known to be formatted if it
+            // formats to itself
+            if (cache != null && formatScript(formatted).equals(formatted))
+            {
+              key = cache.key(bytes);
+            }
+          }
+          return new Result(changed, null, null, key);
+        default:
+          return new Result(changed, null, null, key);
+      }
+    }
+    catch (final CharacterCodingException e)
+    {
+      return new Result(false, null, "not UTF-8, skipped", null);
+    }
+    catch (final IOException e)
+    {
+      return new Result(false, null, e.toString(), null);
+    }
+    catch (final RuntimeException e)
+    {
+      // one file that cannot be formatted does not stop the others
+      return new Result(false, null, "cannot format, " + e, null);
+    }
+  }
+
+  /**
+   * Writes a file through a temporary file in the same directory, which
+   * is moved over the file, so that the file is never left half
+   * written. The file keeps its permissions, and a symbolic link is
+   * followed rather than replaced.
+   */
+  private static void write(final Path link, final byte[] bytes)
+    throws IOException
+  {
+    final Path file = link.toRealPath();
+    final Path temporary = Files.createTempFile(file.getParent(),
+                                                file.getFileName() + ".",
+                                                ".tmp");
+    try
+    {
+      Files.write(temporary, bytes);
+      if (file.getFileSystem().supportedFileAttributeViews()
+        .contains("posix"))
+      {
+        // the temporary file is only readable by its owner
+        Files.setPosixFilePermissions(temporary,
+                                      Files.getPosixFilePermissions(file));
+      }
+      Files.move(temporary,
+                 file,
+                 StandardCopyOption.ATOMIC_MOVE,
+                 StandardCopyOption.REPLACE_EXISTING);
+    }
+    finally
+    {
+      Files.deleteIfExists(temporary);
+    }
+  }
+
+  /**
+   * Formats the text of a file as a script, ending with a line
+   * separator.
+   */
+  private String formatScript(final String source)
+    throws IOException
+  {
+    final StringWriter writer = new StringWriter(source.length() + 64);
+    formatter.formatScript(new StringReader(source), writer);
+    if (writer.getBuffer().length() > 0)
+    {
+      writer.write(formatter.getOptions().getLineSeparator());
+    }
+    return writer.toString();
+  }
+
+  /**
+   * Adds the regular files that match a glob pattern, walking only the
+   * directory named by the part of the pattern before the first glob
+   * character.
+   */
+  private void glob(final String pattern, final Set<Path> files)
+    throws IOException
+  {
+    int firstGlob = 0;
+    while (GLOB_CHARACTERS.indexOf(pattern.charAt(firstGlob)) == -1)
+    {
+      firstGlob++;
+    }
+    final int separator = Math.max(pattern.lastIndexOf('/', firstGlob),
+                                   pattern.lastIndexOf(File.separatorChar,
+                                                       firstGlob));
+    final Path base = Paths.get(pattern.substring(0, separator + 1));
+    if (!Files.isDirectory(base))
+    {
+      return;
+    }
+
+    final PathMatcher matcher = FileSystems.getDefault()
+      .getPathMatcher("glob:" + pattern);
+    try (final Stream<Path> paths = Files.walk(base))
+    {
+      final Iterator<Path> iterator = paths.iterator();
+      while (iterator.hasNext())
+      {
+        final Path candidate = iterator.next();
+        if (matcher.matches(candidate) && Files.isRegularFile(candidate))
+        {
+          files.add(candidate);
+        }
+      }
+    }
+  }
+
+  private static boolean isGlob(final String name)
+  {
+    for (int i = 0; i < name.length(); i++)
+    {
+      if (GLOB_CHARACTERS.indexOf(name.charAt(i)) != -1)
+      {
+        return true;
+      }
+    }
+    return false;
+  }
+
+}
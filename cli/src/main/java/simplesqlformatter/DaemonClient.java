@@ -0,0 +1,101 @@
+/*
+ * Copyright 2004-2013, Sualeh Fatehi <sualeh@hotmail.com>
+ * This work is licensed under the Creative Commons Attribution-Noncommercial-No Derivative Works 3.0 License.
+ * To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/3.0/
+ * or send a letter to Creative Commons, 543 Howard Street, 5th Floor, San Francisco, California, 94105, USA.
+ */
+package simplesqlformatter;
+
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+
+/**
+ * Sends SQL to a running {@link FormatterDaemon}, and receives it
+ * formatted. A client keeps its connection open, so that it can send
+ * many requests.
+ *
+ * @author Sualeh Fatehi
+ */
+final class DaemonClient
+  implements Closeable
+{
+
+  private final SocketChannel channel;
+  private final DataInputStream in;
+  private final DataOutputStream out;
+
+  /**
+   * Connects to a daemon.
+   *
+   * @param socket
+   *        Path of the socket file of the daemon
+   * @throws IOException
+   *         If the daemon cannot be reached
+   */
+  DaemonClient(final Path socket)
+    throws IOException
+  {
+    channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+    try
+    {
+      channel.connect(UnixDomainSocketAddress.of(socket));
+    }
+    catch (final IOException e)
+    {
+      channel.close();
+      throw new IOException("No formatter daemon on " + socket, e);
+    }
+    in = new DataInputStream(new BufferedInputStream(Channels
+      .newInputStream(channel)));
+    out = new DataOutputStream(new BufferedOutputStream(Channels
+      .newOutputStream(channel)));
+  }
+
+  public void close()
+    throws IOException
+  {
+    channel.close();
+  }
+
+  /**
+   * Formats SQL in the daemon.
+   *
+   * @param sql
+   *        SQL statement, or script of many statements
+   * @param script
+   *        Whether the SQL is a script
+   * @return Formatted SQL
+   * @throws IOException
+   *         On an exception talking to the daemon, or if the daemon
+   *         could not format the SQL
+   */
+  String format(final String sql, final boolean script)
+    throws IOException
+  {
+    DaemonProtocol.write(out,
+                         script? DaemonProtocol.SCRIPT: DaemonProtocol.FORMAT,
+                         sql);
+    final DaemonProtocol.Frame response = DaemonProtocol.read(in);
+    if (response == null)
+    {
+      throw new IOException("Formatter daemon closed the connection");
+    }
+    if (response.code != DaemonProtocol.OK)
+    {
+      throw new IOException("Formatter daemon could not format the SQL: " +
+                            response.text);
+    }
+    return response.text;
+  }
+
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2004-2013, Sualeh Fatehi <sualeh@hotmail.com>
+ * This work is licensed under the Creative Commons Attribution-Noncommercial-No Derivative Works 3.0 License.
+ * To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/3.0/
+ * or send a letter to Creative Commons, 543 Howard Street, 5th Floor, San Francisco, California, 94105, USA.
+ */
+package simplesqlformatter;
+
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Frames of requests to the formatter daemon, and of its responses. A
+ * frame is a one byte code, the length of the text as a four byte
+ * integer, and the text in UTF-8. A request code says how to format the
+ * text, and a response code says whether the text is the formatted SQL
+ * or an error message. A connection can carry any number of requests,
+ * each followed by its response.
+ *
+ * @author Sualeh Fatehi
+ */
+final class DaemonProtocol
+{
+
+  /** Request to format a single statement. */
+  static final byte FORMAT = 'F';
+  /** Request to format a script of many statements. */
+  static final byte SCRIPT = 'S';
+  /** Response with the formatted text. */
+  static final byte OK = 'K';
+  /** Response with an error message. */
+  static final byte ERROR = 'E';
+
+  /**
+   * Largest text in a frame, so that a bad frame cannot exhaust memory.
+   */
+  static final int MAX_LENGTH = 64 * 1024 * 1024;
+
+  /**
+   * A frame that has been read.
+   */
+  static final class Frame
+  {
+
+    final byte code;
+    final String text;
+
+    Frame(final byte code, final String text)
+    {
+      this.code = code;
+      this.text = text;
+    }
+
+  }
+
+  /**
+   * Reads a frame.
+   *
+   * @param in
+   *        Input
+   * @return Frame, or null at the end of the input
+   * @throws IOException
+   *         On an exception reading, or if the frame is not valid
+   */
+  static Frame read(final DataInputStream in)
+    throws IOException
+  {
+    final int code = in.read();
+    if (code == -1)
+    {
+      return null;
+    }
+    final int length = in.readInt();
+    if (length < 0 || length > MAX_LENGTH)
+    {
+      throw new IOException("Frame is too long, " + length + " bytes");
+    }
+    final byte[] bytes = new byte[length];
+    try
+    {
+      in.readFully(bytes);
+    }
+    catch (final EOFException e)
+    {
+      throw new IOException("Frame is not complete", e);
+    }
+    return new Frame((byte) code, new String(bytes, StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Writes a frame, and flushes it.
+   *
+   * @param out
+   *        Output
+   * @param code
+   *        Request or response code
+   * @param text
+   *        Text of the frame
+   * @throws IOException
+   *         On an exception writing
+   */
+  static void write(final DataOutputStream out,
+                    final byte code,
+                    final String text)
+    throws IOException
+  {
+    final byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+    out.writeByte(code);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+    out.flush();
+  }
+
+  private DaemonProtocol()
+  {
+  }
+
+}
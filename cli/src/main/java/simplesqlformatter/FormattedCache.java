@@ -0,0 +1,363 @@
+/*
+ * Copyright 2004-2013, Sualeh Fatehi <sualeh@hotmail.com>
+ * This work is licensed under the Creative Commons Attribution-Noncommercial-No Derivative Works 3.0 License.
+ * To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/3.0/
+ * or send a letter to Creative Commons, 543 Howard Street, 5th Floor, San Francisco, California, 94105, USA.
+ */
+package simplesqlformatter;
+
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.TreeSet;
+
+import simplesqlformatter.formatter.FormatterOptions;
+
+/**
+ * On-disk set of the contents of files that are known to be formatted,
+ * so that a batch run can skip a file that has not changed since it was
+ * last checked, without parsing it. Each entry is the first 16 bytes of
+ * the SHA-256 hash of the formatter version, the formatter options and
+ * the file contents, so an entry does not match once the formatter or
+ * its options change.
+ * <p>
+ * The cache file is a 16 byte header, of a magic number, the format
+ * version and the number of entries, followed by the entries in sorted
+ * order. It is memory-mapped, and looked up by binary search. The file
+ * is never changed in place; a run that has new entries merges them
+ * with the entries on disk under a lock on a separate lock file, writes
+ * a new file, and renames it over the old one, so runs at the same time
+ * never see a partly written cache, and do not lose each other's
+ * entries.
+ * <p>
+ * The lock file, &lt;cache file&gt;.lock, and the new file,
+ * &lt;cache file&gt;.tmp, are in the same directory as the cache file.
+ * The new file is removed once it is renamed or cannot be written; the
+ * lock file is left in place, since removing it while another run waits
+ * for the lock would let a third run lock a new file at the same time.
+ *
+ * @author Sualeh Fatehi
+ */
+final class FormattedCache
+{
+
+  /**
+   * Hash of formatted contents.
+   */
+  static final class Key
+    implements Comparable<Key>
+  {
+
+    final long high;
+    final long low;
+
+    Key(final long high, final long low)
+    {
+      this.high = high;
+      this.low = low;
+    }
+
+    @Override
+    public int compareTo(final Key other)
+    {
+      final int compare = Long.compareUnsigned(high, other.high);
+      if (compare != 0)
+      {
+        return compare;
+      }
+      return Long.compareUnsigned(low, other.low);
+    }
+
+    @Override
+    public boolean equals(final Object obj)
+    {
+      if (!(obj instanceof Key))
+      {
+        return false;
+      }
+      final Key other = (Key) obj;
+      return high == other.high && low == other.low;
+    }
+
+    @Override
+    public int hashCode()
+    {
+      return (int) (low ^ low >>> 32);
+    }
+
+  }
+
+  private static final int MAGIC = 0x53514643;
+  private static final int FORMAT = 1;
+  private static final int HEADER_SIZE = 16;
+  private static final int ENTRY_SIZE = 16;
+  /**
+   * Number of entries past which entries from earlier runs are dropped,
+   * so that the cache does not grow without bound.
+   */
+  private static final int MAX_ENTRIES = 1 << 20;
+
+  private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+  private final Path file;
+  private final MessageDigest salted;
+  private final ByteBuffer entries;
+  private final Set<Key> seen = new TreeSet<Key>();
+  private boolean added;
+
+  /**
+   * Opens a cache file, for a formatter with the given options. A cache
+   * file that does not exist, or that is not valid, is taken as empty.
+   *
+   * @param file
+   *        Cache file
+   * @param options
+   *        Formatter options
+   * @throws IOException
+   *         On an exception reading the cache file
+   */
+  FormattedCache(final Path file, final FormatterOptions options)
+    throws IOException
+  {
+    if (file == null)
+    {
+      throw new IllegalArgumentException("No cache file provided");
+    }
+    this.file = file;
+    try
+    {
+      salted = MessageDigest.getInstance("SHA-256");
+    }
+    catch (final NoSuchAlgorithmException e)
+    {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+    final String salt = Version.getVersion() + '\0' + options.getIndent() +
+                        '\0' + options.getKeywordCase() + '\0' +
+                        options.getLineSeparator() + '\0';
+    salted.update(salt.getBytes(StandardCharsets.UTF_8));
+    entries = map(file);
+  }
+
+  /**
+   * Records that contents are formatted, so that later runs can skip
+   * them. Entries are written by {@link #save()}.
+   *
+   * @param key
+   *        Hash of the formatted contents
+   */
+  void add(final Key key)
+  {
+    seen.add(key);
+    if (!contains(key))
+    {
+      added = true;
+    }
+  }
+
+  /**
+   * Checks whether contents are known to be formatted. This can be
+   * called from many threads at once.
+   *
+   * @param key
+   *        Hash of the contents
+   * @return Whether the contents are formatted
+   */
+  boolean contains(final Key key)
+  {
+    int low = 0;
+    int high = entries.limit() / ENTRY_SIZE - 1;
+    while (low <= high)
+    {
+      final int middle = (low + high) >>> 1;
+      final Key entry = entry(entries, middle);
+      final int compare = entry.compareTo(key);
+      if (compare < 0)
+      {
+        low = middle + 1;
+      }
+      else if (compare > 0)
+      {
+        high = middle - 1;
+      }
+      else
+      {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Hashes file contents, with the formatter version and options. This
+   * can be called from many threads at once.
+   *
+   * @param contents
+   *        File contents
+   * @return Hash of the contents
+   */
+  Key key(final byte[] contents)
+  {
+    final MessageDigest digest;
+    try
+    {
+      digest = (MessageDigest) salted.clone();
+    }
+    catch (final CloneNotSupportedException e)
+    {
+      throw new IllegalStateException("Cannot hash file contents", e);
+    }
+    final ByteBuffer hash = ByteBuffer.wrap(digest.digest(contents));
+    return new Key(hash.getLong(0), hash.getLong(8));
+  }
+
+  /**
+   * Writes the entries that have been added, with the entries that are
+   * in the cache file now, which may have been written by another run
+   * since this cache was opened. Nothing is written if no entries are
+   * new.
+   *
+   * @throws IOException
+   *         On an exception writing the cache file
+   */
+  void save()
+    throws IOException
+  {
+    if (!added)
+    {
+      return;
+    }
+    final Path directory = file.toAbsolutePath().getParent();
+    final Path lockFile = directory.resolve(file.getFileName() + ".lock");
+    try (final FileChannel lockChannel = FileChannel
+      .open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE))
+    {
+      // the lock is released when the channel is closed
+      lockChannel.lock();
+      ByteBuffer current = map(file);
+      if (current.limit() / ENTRY_SIZE + seen.size() > MAX_ENTRIES)
+      {
+        current = EMPTY;
+      }
+
+      // merge the sorted entries on disk with the sorted entries seen
+      final ByteBuffer merged = ByteBuffer
+        .allocate(HEADER_SIZE + current.limit() + seen.size() * ENTRY_SIZE);
+      merged.position(HEADER_SIZE);
+      final Iterator<Key> iterator = seen.iterator();
+      Key next = iterator.hasNext()? iterator.next(): null;
+      int index = 0;
+      final int count = current.limit() / ENTRY_SIZE;
+      while (index < count || next != null)
+      {
+        final Key entry = index < count? entry(current, index): null;
+        final Key smaller;
+        if (entry == null)
+        {
+          smaller = next;
+        }
+        else if (next == null)
+        {
+          smaller = entry;
+        }
+        else
+        {
+          smaller = entry.compareTo(next) <= 0? entry: next;
+        }
+        if (smaller == entry)
+        {
+          index++;
+          if (smaller.equals(next))
+          {
+            next = iterator.hasNext()? iterator.next(): null;
+          }
+        }
+        else
+        {
+          next = iterator.hasNext()? iterator.next(): null;
+        }
+        merged.putLong(smaller.high).putLong(smaller.low);
+      }
+      merged.flip();
+      merged.putInt(0, MAGIC);
+      merged.putInt(4, FORMAT);
+      merged.putLong(8, (merged.limit() - HEADER_SIZE) / ENTRY_SIZE);
+
+      // only the run that holds the lock writes the temporary file
+      final Path temporary = directory.resolve(file.getFileName() + ".tmp");
+      try
+      {
+        try (final FileChannel channel = FileChannel
+          .open(temporary,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE))
+        {
+          while (merged.hasRemaining())
+          {
+            channel.write(merged);
+          }
+        }
+        Files.move(temporary,
+                   file,
+                   StandardCopyOption.ATOMIC_MOVE,
+                   StandardCopyOption.REPLACE_EXISTING);
+      }
+      finally
+      {
+        Files.deleteIfExists(temporary);
+      }
+    }
+    added = false;
+  }
+
+  private static Key entry(final ByteBuffer entries, final int index)
+  {
+    final int offset = index * ENTRY_SIZE;
+    return new Key(entries.getLong(offset), entries.getLong(offset + 8));
+  }
+
+  /**
+   * Maps the entries of a cache file, or gives no entries if the file
+   * does not exist or is not valid.
+   */
+  private static ByteBuffer map(final Path file)
+    throws IOException
+  {
+    try (final FileChannel channel = FileChannel.open(file,
+                                                      StandardOpenOption.READ))
+    {
+      final long size = channel.size();
+      if (size < HEADER_SIZE || size > Integer.MAX_VALUE)
+      {
+        return EMPTY;
+      }
+      final ByteBuffer mapped = channel
+        .map(FileChannel.MapMode.READ_ONLY, 0, size);
+      if (mapped.getInt(0) != MAGIC || mapped.getInt(4) != FORMAT ||
+          mapped.getLong(8) != (size - HEADER_SIZE) / ENTRY_SIZE ||
+          (size - HEADER_SIZE) % ENTRY_SIZE != 0)
+      {
+        return EMPTY;
+      }
+      mapped.position(HEADER_SIZE);
+      return mapped.slice();
+    }
+    catch (final NoSuchFileException e)
+    {
+      return EMPTY;
+    }
+  }
+
+}
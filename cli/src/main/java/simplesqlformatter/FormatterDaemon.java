@@ -0,0 +1,292 @@
+/*
+ * Copyright 2004-2013, Sualeh Fatehi <sualeh@hotmail.com>
+ * This work is licensed under the Creative Commons Attribution-Noncommercial-No Derivative Works 3.0 License.
+ * To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/3.0/
+ * or send a letter to Creative Commons, 543 Howard Street, 5th Floor, San Francisco, California, 94105, USA.
+ */
+package simplesqlformatter;
+
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.net.ConnectException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import simplesqlformatter.formatter.SQLFormatter;
+
+/**
+ * Formats SQL for clients that connect over a Unix domain socket, so
+ * that editors and scripts do not pay for starting a JVM for every
+ * statement. The daemon stays resident with a warm formatter, and
+ * serves each connection on its own thread, with requests framed as in
+ * {@link DaemonProtocol}.
+ * <p>
+ * Where the file system has POSIX permissions, only the user that
+ * started the daemon can connect to it. The socket is bound in a
+ * private directory, made readable and writable only by its owner, and
+ * then moved into place, so that no other user can connect in between.
+ *
+ * @author Sualeh Fatehi
+ */
+final class FormatterDaemon
+{
+
+  private static final Logger LOGGER = Logger.getLogger(FormatterDaemon.class
+    .getName());
+
+  private final SQLFormatter formatter = new SQLFormatter();
+  private final Path socket;
+
+  /**
+   * Creates a daemon that listens on a socket file.
+   *
+   * @param socket
+   *        Path of the socket file
+   */
+  FormatterDaemon(final Path socket)
+  {
+    this.socket = socket;
+  }
+
+  /**
+   * Listens for connections until the JVM exits. A socket file that
+   * has been left behind by a daemon that did not exit cleanly is
+   * replaced, but a daemon that is still running is not.
+   *
+   * @throws IOException
+   *         On an exception binding to the socket, or if another daemon
+   *         is listening on it
+   */
+  void run()
+    throws IOException
+  {
+    removeStaleSocket();
+    final ServerSocketChannel server = bind();
+    // the socket file is only removed at exit if it is still the one
+    // that this daemon made
+    final Object socketKey = fileKey(socket);
+    Runtime.getRuntime().addShutdownHook(new Thread()
+    {
+      @Override
+      public void run()
+      {
+        try
+        {
+          server.close();
+          if (socketKey != null && socketKey.equals(fileKey(socket)))
+          {
+            Files.deleteIfExists(socket);
+          }
+        }
+        catch (final IOException e)
+        {
+          LOGGER.log(Level.FINE, e.getMessage(), e);
+        }
+      }
+    });
+
+    final ExecutorService connections = Executors
+      .newCachedThreadPool(new ThreadFactory()
+      {
+        public Thread newThread(final Runnable runnable)
+        {
+          final Thread thread = new Thread(runnable, "sqlformatter-daemon");
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+    LOGGER.log(Level.INFO, "Formatting SQL on " + socket);
+    while (server.isOpen())
+    {
+      final SocketChannel connection;
+      try
+      {
+        connection = server.accept();
+      }
+      catch (final ClosedChannelException e)
+      {
+        // closed by the shutdown hook
+        return;
+      }
+      connections.execute(new Runnable()
+      {
+        public void run()
+        {
+          serve(connection);
+        }
+      });
+    }
+  }
+
+  private static Object fileKey(final Path file)
+    throws IOException
+  {
+    try
+    {
+      return Files.readAttributes(file,
+                                  BasicFileAttributes.class,
+                                  LinkOption.NOFOLLOW_LINKS).fileKey();
+    }
+    catch (final NoSuchFileException e)
+    {
+      return null;
+    }
+  }
+
+  /**
+   * Binds to the socket file, with owner-only permissions where the
+   * file system has them.
+   */
+  private ServerSocketChannel bind()
+    throws IOException
+  {
+    final ServerSocketChannel server = ServerSocketChannel
+      .open(StandardProtocolFamily.UNIX);
+    if (!FileSystems.getDefault().supportedFileAttributeViews()
+      .contains("posix"))
+    {
+      server.bind(UnixDomainSocketAddress.of(socket));
+      return server;
+    }
+
+    final Path directory = Files.createTempDirectory(socket.toAbsolutePath()
+      .getParent(), ".sqlformatter", PosixFilePermissions
+      .asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+    final Path bound = directory.resolve("socket");
+    try
+    {
+      server.bind(UnixDomainSocketAddress.of(bound));
+      Files.setPosixFilePermissions(bound,
+                                    PosixFilePermissions.fromString("rw-------"));
+      // fails if another daemon has made the socket file since
+      Files.move(bound, socket);
+      return server;
+    }
+    catch (final IOException | RuntimeException e)
+    {
+      server.close();
+      throw e;
+    }
+    finally
+    {
+      Files.deleteIfExists(bound);
+      Files.delete(directory);
+    }
+  }
+
+  private String format(final DaemonProtocol.Frame request)
+    throws IOException
+  {
+    if (request.code == DaemonProtocol.FORMAT)
+    {
+      return formatter.format(request.text);
+    }
+    else if (request.code == DaemonProtocol.SCRIPT)
+    {
+      final StringWriter writer = new StringWriter(request.text.length());
+      formatter.formatScript(new StringReader(request.text), writer);
+      return writer.toString();
+    }
+    else
+    {
+      throw new IOException("Unknown request, " + (char) request.code);
+    }
+  }
+
+  /**
+   * Removes a socket file that no daemon is listening on. A file that
+   * is not a socket, or a socket that a daemon is listening on, is
+   * left alone.
+   */
+  private void removeStaleSocket()
+    throws IOException
+  {
+    final BasicFileAttributes attributes;
+    try
+    {
+      attributes = Files.readAttributes(socket,
+                                        BasicFileAttributes.class,
+                                        LinkOption.NOFOLLOW_LINKS);
+    }
+    catch (final NoSuchFileException e)
+    {
+      return;
+    }
+    if (!attributes.isOther())
+    {
+      throw new IOException("Not a socket, " + socket);
+    }
+
+    try (final SocketChannel channel = SocketChannel
+      .open(StandardProtocolFamily.UNIX))
+    {
+      channel.connect(UnixDomainSocketAddress.of(socket));
+    }
+    catch (final ConnectException e)
+    {
+      // the connection was refused, so the daemon has gone
+      Files.deleteIfExists(socket);
+      return;
+    }
+    throw new IOException("A formatter daemon is already running on " +
+                          socket);
+  }
+
+  /**
+   * Answers requests on a connection until the client closes it.
+   */
+  private void serve(final SocketChannel connection)
+  {
+    try (final SocketChannel channel = connection)
+    {
+      final DataInputStream in = new DataInputStream(new BufferedInputStream(Channels
+        .newInputStream(channel)));
+      final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels
+        .newOutputStream(channel)));
+      DaemonProtocol.Frame request;
+      while ((request = DaemonProtocol.read(in)) != null)
+      {
+        String response;
+        byte code = DaemonProtocol.OK;
+        try
+        {
+          response = format(request);
+        }
+        catch (final IOException | RuntimeException e)
+        {
+          // the connection stays open for the next request
+          response = String.valueOf(e);
+          code = DaemonProtocol.ERROR;
+        }
+        DaemonProtocol.write(out, code, response);
+      }
+    }
+    catch (final IOException e)
+    {
+      LOGGER.log(Level.FINE, e.getMessage(), e);
+    }
+  }
+
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2004-2013, Sualeh Fatehi <sualeh@hotmail.com>
+ * This work is licensed under the Creative Commons Attribution-Noncommercial-No Derivative Works 3.0 License.
+ * To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/3.0/
+ * or send a letter to Creative Commons, 543 Howard Street, 5th Floor, San Francisco, California, 94105, USA.
+ */
+package simplesqlformatter;
+
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import simplesqlformatter.formatter.EmbeddedSQL;
+import simplesqlformatter.formatter.JavaSourceFormatter;
+import simplesqlformatter.formatter.SQLFormatter;
+
+/**
+ * Finds SQL in the Java source files under a set of directories, and
+ * either reports the statements that are not formatted, or formats them
+ * in place. Files are read, checked and written in parallel, and the
+ * report is in the order of the file names.
+ *
+ * @author Sualeh Fatehi
+ */
+final class JavaSourceCommand
+{
+
+  /**
+   * Statements that are not formatted in one file, or the reason that
+   * the file could not be checked.
+   */
+  private static final class Result
+  {
+
+    final List<EmbeddedSQL> unformatted;
+    final String error;
+
+    Result(final List<EmbeddedSQL> unformatted, final String error)
+    {
+      this.unformatted = unformatted;
+      this.error = error;
+    }
+
+  }
+
+  private final JavaSourceFormatter formatter = new JavaSourceFormatter(new SQLFormatter());
+  private final boolean write;
+
+  /**
+   * Creates a command to check or format Java source files.
+   *
+   * @param write
+   *        Whether to format the files in place, rather than report on
+   *        them
+   */
+  JavaSourceCommand(final boolean write)
+  {
+    this.write = write;
+  }
+
+  /**
+   * Checks or formats all Java source files under the given
+   * directories.
+   *
+   * @param roots
+   *        Directories, or single Java source files
+   * @param parallelism
+   *        Number of threads to check files on
+   * @param out
+   *        Writer for the report
+   * @param err
+   *        Writer for files that cannot be checked
+   * @return Exit status; 0 on success, {@link BatchCommand#NOT_FORMATTED}
+   *         if checking finds statements that are not formatted, and
+   *         {@link BatchCommand#FAILED} if any file cannot be checked
+   * @throws IOException
+   *         On an exception listing the files
+   */
+  int run(final List<Path> roots,
+          final int parallelism,
+          final PrintWriter out,
+          final PrintWriter err)
+    throws IOException
+  {
+    final List<Path> files = new ArrayList<Path>();
+    for (final Path root: roots)
+    {
+      ParallelFiles.list(root, ".java", files);
+    }
+    Collections.sort(files);
+
+    final List<Result> results = ParallelFiles
+      .run(files, parallelism, new ParallelFiles.FileTask<Result>()
+      {
+        @Override
+        public Result apply(final Path file)
+        {
+          return check(file);
+        }
+      });
+
+    int statements = 0;
+    int changedFiles = 0;
+    int failedFiles = 0;
+    for (int i = 0; i < results.size(); i++)
+    {
+      final Result result = results.get(i);
+      if (result.error != null)
+      {
+        failedFiles++;
+        err.println(files.get(i) + ": " + result.error);
+        continue;
+      }
+      if (result.unformatted.isEmpty())
+      {
+        continue;
+      }
+      changedFiles++;
+      statements = statements + result.unformatted.size();
+      for (final EmbeddedSQL statement: result.unformatted)
+      {
+        out.println(files.get(i) + ":" + statement.getLine() + ": " +
+                    (write? "formatted SQL": "SQL is not formatted"));
+      }
+    }
+    out.println((write? "Formatted ": "Not formatted: ") + statements +
+                " SQL statements in " + changedFiles + " of " +
+                files.size() + " files");
+    out.flush();
+    err.flush();
+
+    if (failedFiles > 0)
+    {
+      return BatchCommand.FAILED;
+    }
+    if (!write && statements > 0)
+    {
+      return BatchCommand.NOT_FORMATTED;
+    }
+    return 0;
+  }
+
+  private Result check(final Path file)
+  {
+    try
+    {
+      final String source = ParallelFiles.read(file);
+      final List<EmbeddedSQL> unformatted = new ArrayList<EmbeddedSQL>();
+      final StringBuilder buffer = new StringBuilder(source.length());
+      int copied = 0;
+      for (final EmbeddedSQL statement: formatter.find(source))
+      {
+        if (!statement.isFormatted())
+        {
+          unformatted.add(statement);
+          buffer.append(source, copied, statement.getStart());
+          buffer.append(statement.getReplacement());
+          copied = statement.getEnd();
+        }
+      }
+      if (write && !unformatted.isEmpty())
+      {
+        buffer.append(source, copied, source.length());
+        Files.write(file, buffer.toString().getBytes(StandardCharsets.UTF_8));
+      }
+      return new Result(unformatted, null);
+    }
+    catch (final CharacterCodingException e)
+    {
+      return new Result(null, "not UTF-8, skipped");
+    }
+    catch (final IOException e)
+    {
+      return new Result(null, e.toString());
+    }
+    catch (final RuntimeException e)
+    {
+      // one file that cannot be formatted does not stop the others
+      return new Result(null, "cannot format, " + e);
+    }
+  }
+
+}
@@ -0,0 +1,309 @@
+/*
+ * Copyright 2004-2013, Sualeh Fatehi <sualeh@hotmail.com>
+ * This work is licensed under the Creative Commons Attribution-Noncommercial-No Derivative Works 3.0 License.
+ * To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/3.0/
+ * or send a letter to Creative Commons, 543 Howard Street, 5th Floor, San Francisco, California, 94105, USA.
+ */
+package simplesqlformatter;
+
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Unified diff of two texts, line by line, in the form that patch
+ * reads. Lines that are the same at the start and the end are matched
+ * first; the lines in between are matched by their longest common
+ * subsequence, unless there are too many of them, when they are shown
+ * as all removed and all added.
+ *
+ * @author Sualeh Fatehi
+ */
+final class LineDiff
+{
+
+  private static final int CONTEXT = 3;
+  private static final int MAX_TABLE = 1 << 20;
+
+  private static final char SAME = ' ';
+  private static final char REMOVED = '-';
+  private static final char ADDED = '+';
+
+  /**
+   * Makes a unified diff, with three lines of context.
+   *
+   * @param fromName
+   *        Name of the original text
+   * @param toName
+   *        Name of the changed text
+   * @param from
+   *        Original text
+   * @param to
+   *        Changed text
+   * @return Unified diff, or an empty string if the texts are the same
+   */
+  static String diff(final String fromName,
+                     final String toName,
+                     final String from,
+                     final String to)
+  {
+    if (from.equals(to))
+    {
+      return "";
+    }
+    final List<String> a = lines(from);
+    final List<String> b = lines(to);
+    final char[] edits = edits(a, b);
+
+    final StringBuilder diff = new StringBuilder();
+    diff.append("--- ").append(fromName).append('\n');
+    diff.append("+++ ").append(toName).append('\n');
+
+    int position = 0;
+    int aLine = 0;
+    int bLine = 0;
+    while (true)
+    {
+      // find the next change, and the changes close enough to it to
+      // share a hunk
+      int change = position;
+      while (change < edits.length && edits[change] == SAME)
+      {
+        change++;
+      }
+      if (change == edits.length)
+      {
+        break;
+      }
+      int end = change;
+      while (true)
+      {
+        while (end < edits.length && edits[end] != SAME)
+        {
+          end++;
+        }
+        int next = end;
+        while (next < edits.length && edits[next] == SAME)
+        {
+          next++;
+        }
+        if (next == edits.length || next - end > 2 * CONTEXT)
+        {
+          break;
+        }
+        end = next;
+      }
+      final int start = Math.max(position, change - CONTEXT);
+      end = Math.min(edits.length, end + CONTEXT);
+
+      // skip to the start of the hunk
+      for (int i = position; i < start; i++)
+      {
+        aLine++;
+        bLine++;
+      }
+      int aCount = 0;
+      int bCount = 0;
+      for (int i = start; i < end; i++)
+      {
+        if (edits[i] != ADDED)
+        {
+          aCount++;
+        }
+        if (edits[i] != REMOVED)
+        {
+          bCount++;
+        }
+      }
+      diff.append("@@ -").append(range(aLine, aCount)).append(" +")
+        .append(range(bLine, bCount)).append(" @@\n");
+      for (int i = start; i < end; i++)
+      {
+        final String line;
+        if (edits[i] == ADDED)
+        {
+          line = b.get(bLine++);
+        }
+        else if (edits[i] == REMOVED)
+        {
+          line = a.get(aLine++);
+        }
+        else
+        {
+          line = a.get(aLine++);
+          bLine++;
+        }
+        diff.append(edits[i]).append(line);
+        if (!line.endsWith("\n"))
+        {
+          diff.append("\n\\ No newline at end of file\n");
+        }
+      }
+      position = end;
+    }
+    return diff.toString();
+  }
+
+  /**
+   * Lines shown as same, removed or added, in order.
+   */
+  private static char[] edits(final List<String> a, final List<String> b)
+  {
+    int prefix = 0;
+    while (prefix < a.size() && prefix < b.size() &&
+           a.get(prefix).equals(b.get(prefix)))
+    {
+      prefix++;
+    }
+    int suffix = 0;
+    while (suffix < a.size() - prefix && suffix < b.size() - prefix &&
+           a.get(a.size() - 1 - suffix).equals(b.get(b.size() - 1 - suffix)))
+    {
+      suffix++;
+    }
+    final int p = a.size() - prefix - suffix;
+    final int q = b.size() - prefix - suffix;
+
+    final StringBuilder edits = new StringBuilder(prefix + p + q + suffix);
+    for (int i = 0; i < prefix; i++)
+    {
+      edits.append(SAME);
+    }
+    if ((long) (p + 1) * (q + 1) > MAX_TABLE)
+    {
+      for (int i = 0; i < p; i++)
+      {
+        edits.append(REMOVED);
+      }
+      for (int j = 0; j < q; j++)
+      {
+        edits.append(ADDED);
+      }
+    }
+    else
+    {
+      // number the lines, so that they are compared as integers
+      final Map<String, Integer> numbers = new HashMap<String, Integer>();
+      final int[] x = number(a, prefix, p, numbers);
+      final int[] y = number(b, prefix, q, numbers);
+
+      // length of the longest common subsequence of the rest of x and y
+      final int width = q + 1;
+      final int[] lengths = new int[(p + 1) * width];
+      for (int i = p - 1; i >= 0; i--)
+      {
+        for (int j = q - 1; j >= 0; j--)
+        {
+          if (x[i] == y[j])
+          {
+            lengths[i * width + j] = lengths[(i + 1) * width + j + 1] + 1;
+          }
+          else
+          {
+            lengths[i * width + j] = Math.max(lengths[(i + 1) * width + j],
+                                              lengths[i * width + j + 1]);
+          }
+        }
+      }
+      int i = 0;
+      int j = 0;
+      while (i < p && j < q)
+      {
+        if (x[i] == y[j])
+        {
+          edits.append(SAME);
+          i++;
+          j++;
+        }
+        else if (lengths[(i + 1) * width + j] >= lengths[i * width + j + 1])
+        {
+          edits.append(REMOVED);
+          i++;
+        }
+        else
+        {
+          edits.append(ADDED);
+          j++;
+        }
+      }
+      for (; i < p; i++)
+      {
+        edits.append(REMOVED);
+      }
+      for (; j < q; j++)
+      {
+        edits.append(ADDED);
+      }
+    }
+    for (int i = 0; i < suffix; i++)
+    {
+      edits.append(SAME);
+    }
+
+    final char[] chars = new char[edits.length()];
+    edits.getChars(0, chars.length, chars, 0);
+    return chars;
+  }
+
+  /**
+   * Splits text into lines, each with its line terminator, if it has
+   * one.
+   */
+  private static List<String> lines(final String text)
+  {
+    final List<String> lines = new ArrayList<String>();
+    int start = 0;
+    while (start < text.length())
+    {
+      final int newline = text.indexOf('\n', start);
+      final int end = newline == -1? text.length(): newline + 1;
+      lines.add(text.substring(start, end));
+      start = end;
+    }
+    return lines;
+  }
+
+  private static int[] number(final List<String> lines,
+                              final int offset,
+                              final int count,
+                              final Map<String, Integer> numbers)
+  {
+    final int[] numbered = new int[count];
+    for (int i = 0; i < count; i++)
+    {
+      final String line = lines.get(offset + i);
+      Integer number = numbers.get(line);
+      if (number == null)
+      {
+        number = Integer.valueOf(numbers.size());
+        numbers.put(line, number);
+      }
+      numbered[i] = number.intValue();
+    }
+    return numbered;
+  }
+
+  /**
+   * Line range of a hunk, from the number of lines before it; an empty
+   * range is shown at the line before it.
+   */
+  private static String range(final int before, final int count)
+  {
+    if (count == 1)
+    {
+      return String.valueOf(before + 1);
+    }
+    if (count == 0)
+    {
+      return before + ",0";
+    }
+    return (before + 1) + "," + count;
+  }
+
+  private LineDiff()
+  {
+  }
+
+}
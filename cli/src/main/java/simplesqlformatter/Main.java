@@ -0,0 +1,310 @@
+/*
+ * Copyright 2004-2013, Sualeh Fatehi <sualeh@hotmail.com>
+ * This work is licensed under the Creative Commons Attribution-Noncommercial-No Derivative Works 3.0 License. 
+ * To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/3.0/ 
+ * or send a letter to Creative Commons, 543 Howard Street, 5th Floor, San Francisco, California, 94105, USA.
+ */
+package simplesqlformatter;
+
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.io.IOUtils;
+
+import sf.util.CommandLineParser;
+import simplesqlformatter.formatter.SQLFormatter;
+
+/**
+ * Command line interface to the Simple SQL formatter.
+ * 
+ * @author Sualeh Fatehi
+ */
+public final class Main
+{
+
+  /**
+   * Reads stdin for a SQL statement, formats it, and prints it to
+   * stdout.
+   * 
+   * @param args
+   *        Ignored
+   * @throws IOException
+   *         In case of i/o error
+   */
+  public static void main(final String[] args)
+    throws IOException
+  {
+
+    // parse command line
+    final CommandLineParser parser = new CommandLineParser();
+    parser.addOption(new CommandLineParser.BooleanOption('h', "?"));
+    parser.addOption(new CommandLineParser.BooleanOption('c', "console"));
+    parser.addOption(new CommandLineParser.BooleanOption('d', "debug"));
+    parser.addOption(new CommandLineParser.BooleanOption('s', "script"));
+    parser
+      .addOption(new CommandLineParser.NumberOption<Number>('p',
+                                                            "parallelism",
+                                                            Runtime
+                                                              .getRuntime()
+                                                              .availableProcessors()));
+    parser.addOption(new CommandLineParser.StringOption('j', "java", null));
+    parser.addOption(new CommandLineParser.BooleanOption('w', "write"));
+    parser.addOption(new CommandLineParser.StringOption(CommandLineParser.Option.NO_SHORT_FORM,
+                                                        "daemon",
+                                                        null));
+    parser.addOption(new CommandLineParser.StringOption(CommandLineParser.Option.NO_SHORT_FORM,
+                                                        "client",
+                                                        null));
+    parser.addOption(new CommandLineParser.BooleanOption(CommandLineParser.Option.NO_SHORT_FORM,
+                                                         "window"));
+    parser.addOption(new CommandLineParser.BooleanOption(CommandLineParser.Option.NO_SHORT_FORM,
+                                                         "in-place"));
+    parser.addOption(new CommandLineParser.BooleanOption(CommandLineParser.Option.NO_SHORT_FORM,
+                                                         "check"));
+    parser.addOption(new CommandLineParser.BooleanOption(CommandLineParser.Option.NO_SHORT_FORM,
+                                                         "diff"));
+    parser.addOption(new CommandLineParser.StringOption(CommandLineParser.Option.NO_SHORT_FORM,
+                                                        "cache",
+                                                        null));
+    parser.parse(args);
+
+    final boolean help = parser.getOption("h").isFound();
+    if (help)
+    {
+      printUsage();
+      return;
+    }
+
+    final boolean debug = parser.getOption("d").isFound();
+    final boolean console = parser.getOption("c").isFound();
+    final boolean window = parser.getOption("window").isFound();
+    final boolean script = parser.getOption("s").isFound();
+    final int parallelism = ((Number) parser.getOption("p").getValue())
+      .intValue();
+
+    final String daemon = parser.getStringOptionValue("daemon");
+    if (daemon != null)
+    {
+      new FormatterDaemon(Paths.get(daemon)).run();
+      return;
+    }
+    final String client = parser.getStringOptionValue("client");
+    if (client != null)
+    {
+      doClient(Paths.get(client), script);
+      return;
+    }
+
+    final String java = parser.getStringOptionValue("j");
+    if (java != null)
+    {
+      final boolean write = parser.getOption("w").isFound();
+      final List<Path> roots = new ArrayList<Path>();
+      roots.add(Paths.get(java));
+      for (final String root: parser.getRemainingArgs())
+      {
+        roots.add(Paths.get(root));
+      }
+      System.exit(doJava(roots, write, parallelism));
+    }
+
+    final String[] files = parser.getRemainingArgs();
+    final boolean inPlace = parser.getOption("in-place").isFound();
+    final boolean check = parser.getOption("check").isFound();
+    final boolean diff = parser.getOption("diff").isFound();
+    if (files.length > 0 || inPlace || check || diff)
+    {
+      final String cache = parser.getStringOptionValue("cache");
+      System.exit(doBatch(files,
+                          inPlace,
+                          check,
+                          diff,
+                          cache == null? null: Paths.get(cache),
+                          parallelism));
+    }
+
+    // the editor is only shown when asked for, and stdin is formatted
+    // otherwise, as the launch scripts and the usage describe
+    if (window && !console && !script)
+    {
+      doWindow(debug);
+    }
+    else
+    {
+      doConsole(script, parallelism);
+    }
+
+  }
+
+  private static int doBatch(final String[] files,
+                             final boolean inPlace,
+                             final boolean check,
+                             final boolean diff,
+                             final Path cache,
+                             final int parallelism)
+    throws IOException
+  {
+    final PrintWriter err = new PrintWriter(System.err);
+    if ((inPlace? 1: 0) + (check? 1: 0) + (diff? 1: 0) > 1)
+    {
+      err.println("Use only one of -in-place, -check and -diff");
+      err.flush();
+      return BatchCommand.FAILED;
+    }
+    if (files.length == 0)
+    {
+      err.println("No files to format");
+      err.flush();
+      return BatchCommand.FAILED;
+    }
+    for (final String file: files)
+    {
+      if (file.startsWith("-"))
+      {
+        err.println("Unknown option, " + file);
+        err.flush();
+        return BatchCommand.FAILED;
+      }
+    }
+
+    final BatchCommand.Mode mode;
+    if (inPlace)
+    {
+      mode = BatchCommand.Mode.IN_PLACE;
+    }
+    else if (check)
+    {
+      mode = BatchCommand.Mode.CHECK;
+    }
+    else if (diff)
+    {
+      mode = BatchCommand.Mode.DIFF;
+    }
+    else
+    {
+      mode = BatchCommand.Mode.PRINT;
+    }
+    final PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out)));
+    try
+    {
+      return new BatchCommand(mode, cache).run(Arrays.asList(files),
+                                               parallelism,
+                                               out,
+                                               err);
+    }
+    catch (final IOException e)
+    {
+      err.println(e.getMessage());
+      err.flush();
+      return BatchCommand.FAILED;
+    }
+  }
+
+  private static int doJava(final List<Path> roots,
+                            final boolean write,
+                            final int parallelism)
+  {
+    final PrintWriter err = new PrintWriter(System.err);
+    try
+    {
+      return new JavaSourceCommand(write).run(roots,
+                                              parallelism,
+                                              new PrintWriter(System.out),
+                                              err);
+    }
+    catch (final IOException e)
+    {
+      err.println(e.getMessage());
+      err.flush();
+      return BatchCommand.FAILED;
+    }
+  }
+
+  private static void doClient(final Path socket, final boolean script)
+    throws IOException
+  {
+    final String sql = IOUtils.toString(new InputStreamReader(System.in));
+    try (final DaemonClient client = new DaemonClient(socket))
+    {
+      final Writer out = new OutputStreamWriter(System.out);
+      out.write(client.format(sql, script));
+      out.flush();
+    }
+  }
+
+  private static void doConsole(final boolean script,
+                                final int parallelism)
+    throws IOException
+  {
+    final Reader in = new BufferedReader(new InputStreamReader(System.in));
+    final Writer out = new BufferedWriter(new OutputStreamWriter(System.out));
+
+    // format as the input is read, and write output
+    if (script)
+    {
+      new SQLFormatter().formatScript(in, out, parallelism);
+    }
+    else
+    {
+      new SQLFormatter().format(in, out);
+    }
+    in.close();
+    out.flush();
+    out.close();
+  }
+
+  private static void doWindow(final boolean debug)
+  {
+    // the editor is in a module of its own, which is loaded only when it
+    // is needed, so that the console does not need Swing
+    try
+    {
+      Class.forName("simplesqlformatter.EditorWindow")
+        .getMethod("show", boolean.class).invoke(null, debug);
+    }
+    catch (final ClassNotFoundException e)
+    {
+      System.err.println("The editor is not installed; use -console to format from stdin");
+      System.exit(1);
+    }
+    catch (final InvocationTargetException e)
+    {
+      if (e.getCause() instanceof RuntimeException)
+      {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException("Cannot show the editor", e.getCause());
+    }
+    catch (final ReflectiveOperationException e)
+    {
+      throw new IllegalStateException("Cannot show the editor", e);
+    }
+  }
+
+  private static void printUsage()
+    throws IOException
+  {
+    System.out.println(Version.about());
+    System.out.println(IOUtils.toString(Main.class
+      .getResourceAsStream("/sqlformatter-readme.txt")));
+  }
+
+  private Main()
+  {
+
+  }
+
+}
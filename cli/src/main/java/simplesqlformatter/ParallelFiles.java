@@ -0,0 +1,213 @@
+/*
+ * Copyright 2004-2013, Sualeh Fatehi <sualeh@hotmail.com>
+ * This work is licensed under the Creative Commons Attribution-Noncommercial-No Derivative Works 3.0 License.
+ * To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/3.0/
+ * or send a letter to Creative Commons, 543 Howard Street, 5th Floor, San Francisco, California, 94105, USA.
+ */
+package simplesqlformatter;
+
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.Stream;
+
+/**
+ * Runs a task on each of a list of files, in parallel on a fork-join
+ * pool, and keeps the results in the order of the files.
+ *
+ * @author Sualeh Fatehi
+ */
+final class ParallelFiles
+{
+
+  /**
+   * Work to do on one file. Tasks run on many threads at once, and
+   * report a failure in their result, rather than throw it.
+   *
+   * @param <R>
+   *        Result type
+   */
+  interface FileTask<R>
+  {
+
+    /**
+     * Does the work for one file.
+     *
+     * @param file
+     *        File to work on
+     * @return Result for the file
+     */
+    R apply(Path file);
+
+  }
+
+  /**
+   * Runs the task on a range of files, splitting the range until it is
+   * small enough for one thread.
+   */
+  private static final class RunRange<R>
+    extends RecursiveAction
+  {
+
+    private static final long serialVersionUID = -4022446052186447152L;
+
+    private final List<Path> files;
+    private final FileTask<R> task;
+    private final AtomicReferenceArray<R> results;
+    private final int from;
+    private final int to;
+
+    RunRange(final List<Path> files,
+             final FileTask<R> task,
+             final AtomicReferenceArray<R> results,
+             final int from,
+             final int to)
+    {
+      this.files = files;
+      this.task = task;
+      this.results = results;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute()
+    {
+      if (to - from <= FILES_PER_TASK)
+      {
+        for (int i = from; i < to; i++)
+        {
+          results.set(i, task.apply(files.get(i)));
+        }
+      }
+      else
+      {
+        final int middle = (from + to) >>> 1;
+        invokeAll(new RunRange<R>(files, task, results, from, middle),
+                  new RunRange<R>(files, task, results, middle, to));
+      }
+    }
+
+  }
+
+  private static final int FILES_PER_TASK = 16;
+
+  /**
+   * Adds the regular files under a directory, or the file itself, that
+   * have a file name extension.
+   *
+   * @param root
+   *        Directory or file
+   * @param extension
+   *        File name extension, such as ".sql"
+   * @param files
+   *        Collection to add the files to
+   * @throws IOException
+   *         On an exception listing the files
+   */
+  static void list(final Path root,
+                   final String extension,
+                   final Collection<Path> files)
+    throws IOException
+  {
+    try (final Stream<Path> paths = Files.walk(root))
+    {
+      final Iterator<Path> iterator = paths.iterator();
+      while (iterator.hasNext())
+      {
+        final Path path = iterator.next();
+        if (path.toString().endsWith(extension) && Files.isRegularFile(path))
+        {
+          files.add(path);
+        }
+      }
+    }
+  }
+
+  /**
+   * Reads a file as UTF-8, and fails on bytes that are not UTF-8 rather
+   * than replace them, so that a file is never written back with its
+   * text damaged.
+   *
+   * @param file
+   *        File to read
+   * @return Text of the file
+   * @throws IOException
+   *         On an exception reading, or a
+   *         {@link java.nio.charset.CharacterCodingException} if the
+   *         file is not UTF-8
+   */
+  static String read(final Path file)
+    throws IOException
+  {
+    return decode(Files.readAllBytes(file));
+  }
+
+  /**
+   * Decodes the contents of a file as UTF-8, in the same way as
+   * {@link #read(Path)}.
+   *
+   * @param contents
+   *        Contents of a file
+   * @return Text of the file
+   * @throws CharacterCodingException
+   *         If the contents are not UTF-8
+   */
+  static String decode(final byte[] contents)
+    throws CharacterCodingException
+  {
+    return StandardCharsets.UTF_8.newDecoder()
+      .decode(ByteBuffer.wrap(contents)).toString();
+  }
+
+  /**
+   * Runs a task on each file.
+   *
+   * @param files
+   *        Files to work on
+   * @param parallelism
+   *        Number of threads to work on
+   * @param task
+   *        Work to do on each file
+   * @return Results, in the order of the files
+   */
+  static <R> List<R> run(final List<Path> files,
+                         final int parallelism,
+                         final FileTask<R> task)
+  {
+    final AtomicReferenceArray<R> results = new AtomicReferenceArray<R>(files
+      .size());
+    final ForkJoinPool pool = new ForkJoinPool(Math.max(1, parallelism));
+    try
+    {
+      pool.invoke(new RunRange<R>(files, task, results, 0, files.size()));
+    }
+    finally
+    {
+      pool.shutdownNow();
+    }
+
+    final List<R> list = new ArrayList<R>(results.length());
+    for (int i = 0; i < results.length(); i++)
+    {
+      list.add(results.get(i));
+    }
+    return list;
+  }
+
+  private ParallelFiles()
+  {
+  }
+
+}
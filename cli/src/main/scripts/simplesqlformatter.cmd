@@ -0,0 +1,10 @@
+@echo off
+rem Uses the class data sharing archive from gradle cdsArchive, if it is
+rem there, so that the JVM starts faster
+set CDS=
+if exist simplesqlformatter.jsa set CDS=-XX:SharedArchiveFile=simplesqlformatter.jsa -Xlog:disable -Xlog:all=warning:stderr
+if "%~1"=="" (
+  start javaw %CDS% -cp ./lib/* simplesqlformatter.Main -window
+) else (
+  java %CDS% -cp ./lib/* simplesqlformatter.Main %*
+)
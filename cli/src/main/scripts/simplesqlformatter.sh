@@ -0,0 +1,11 @@
+#!/bin/sh
+# Uses the class data sharing archive from gradle cdsArchive, if it is
+# there, so that the JVM starts faster
+CDS=
+if [ -f simplesqlformatter.jsa ]; then
+  CDS="-XX:SharedArchiveFile=simplesqlformatter.jsa -Xlog:disable -Xlog:all=warning:stderr"
+fi
+if [ $# -eq 0 ]; then
+  set -- -window
+fi
+exec java $CDS -cp "./lib/*" simplesqlformatter.Main "$@"
@@ -0,0 +1,159 @@
+package simplesqlformatter;
+
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+import junit.framework.TestCase;
+
+public class TestBatchCommand
+  extends TestCase
+{
+
+  private Path directory;
+
+  @Override
+  protected void setUp()
+    throws Exception
+  {
+    directory = Files.createTempDirectory("batch");
+  }
+
+  @Override
+  protected void tearDown()
+    throws Exception
+  {
+    // delete the files before the directories that hold them
+    final TreeSet<Path> paths = new TreeSet<Path>(Collections.reverseOrder());
+    try (final Stream<Path> walk = Files.walk(directory))
+    {
+      final Iterator<Path> iterator = walk.iterator();
+      while (iterator.hasNext())
+      {
+        paths.add(iterator.next());
+      }
+    }
+    for (final Path path: paths)
+    {
+      Files.delete(path);
+    }
+  }
+
+  public void testInPlaceThenCheck()
+    throws IOException
+  {
+    final Path file = write("accounts.sql",
+                            "-- list accounts\nselect a -- the a\n, b from t -- end\n");
+    assertEquals(0, run(BatchCommand.Mode.IN_PLACE, null, file));
+    final String formatted = read(file);
+    assertTrue(formatted, formatted.startsWith("/* list accounts*/"));
+
+    // the formatted file is formatted
+    assertEquals(0, run(BatchCommand.Mode.CHECK, null, file));
+    assertEquals(0, run(BatchCommand.Mode.IN_PLACE, null, file));
+    assertEquals(formatted, read(file));
+  }
+
+  public void testInPlaceKeepsSQL()
+    throws IOException
+  {
+    final Path file = write("notes.sql",
+                            "select 'it''s' from t -- note */ here\n;\n");
+    assertEquals(0, run(BatchCommand.Mode.IN_PLACE, null, file));
+    assertEquals("SELECT\n'it''s' FROM\n  t -- note */ here\n;\n", read(file));
+
+    // a Java string would be turned into the SQL that it holds
+    final String javaString = "\"select a from t\";\n";
+    final Path quoted = write("quoted.sql", javaString);
+    final StringWriter err = new StringWriter();
+    assertEquals(BatchCommand.FAILED,
+                 run(BatchCommand.Mode.IN_PLACE, null, quoted, err));
+    assertTrue(err.toString(), err.toString().contains("change the SQL"));
+    assertEquals(javaString, read(quoted));
+    try (final Stream<Path> files = Files.list(directory))
+    {
+      assertEquals(2, files.count());
+    }
+  }
+
+  public void testCheckWithCache()
+    throws IOException
+  {
+    final Path cacheFile = directory.resolve("formatted.cache");
+    final Path accounts = write("accounts.sql",
+                                "-- list accounts\nselect 'it''s' from b;\n");
+    final Path notes = write("notes.sql", "select a -- x */ y\nfrom t;\n");
+    final String javaString = "\"select a from t\";\n";
+    final Path quoted = write("quoted.sql", javaString);
+
+    assertEquals(0, run(BatchCommand.Mode.IN_PLACE, cacheFile, accounts));
+    assertEquals(0, run(BatchCommand.Mode.IN_PLACE, cacheFile, notes));
+    assertEquals(BatchCommand.FAILED,
+                 run(BatchCommand.Mode.IN_PLACE,
+                     cacheFile,
+                     quoted,
+                     new StringWriter()));
+    assertTrue(Files.exists(cacheFile));
+
+    // the cache gives the same answers as formatting the files again
+    for (final Path file: new Path[] {
+        accounts, notes
+    })
+    {
+      assertEquals(0, run(BatchCommand.Mode.CHECK, null, file));
+      assertEquals(0, run(BatchCommand.Mode.CHECK, cacheFile, file));
+    }
+    // and a file that was not written is not in it
+    assertEquals(BatchCommand.NOT_FORMATTED,
+                 run(BatchCommand.Mode.CHECK, null, quoted));
+    assertEquals(BatchCommand.NOT_FORMATTED,
+                 run(BatchCommand.Mode.CHECK, cacheFile, quoted));
+    assertEquals(javaString, read(quoted));
+  }
+
+  private int run(final BatchCommand.Mode mode,
+                  final Path cacheFile,
+                  final Path file)
+    throws IOException
+  {
+    final StringWriter err = new StringWriter();
+    final int status = run(mode, cacheFile, file, err);
+    assertEquals("", err.toString());
+    return status;
+  }
+
+  private int run(final BatchCommand.Mode mode,
+                  final Path cacheFile,
+                  final Path file,
+                  final StringWriter err)
+    throws IOException
+  {
+    final List<String> names = Collections.singletonList(file.toString());
+    return new BatchCommand(mode, cacheFile)
+      .run(names, 1, new PrintWriter(new StringWriter()), new PrintWriter(err));
+  }
+
+  private Path write(final String name, final String text)
+    throws IOException
+  {
+    final Path file = directory.resolve(name);
+    Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+    return file;
+  }
+
+  private static String read(final Path file)
+    throws IOException
+  {
+    return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+  }
+
+}
@@ -0,0 +1,72 @@
+package simplesqlformatter;
+
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import junit.framework.TestCase;
+
+public class TestJavaSourceCommand
+  extends TestCase
+{
+
+  private Path directory;
+
+  @Override
+  protected void setUp()
+    throws Exception
+  {
+    directory = Files.createTempDirectory("java");
+  }
+
+  @Override
+  protected void tearDown()
+    throws Exception
+  {
+    try (final Stream<Path> files = Files.list(directory))
+    {
+      final Iterator<Path> iterator = files.iterator();
+      while (iterator.hasNext())
+      {
+        Files.delete(iterator.next());
+      }
+    }
+    Files.delete(directory);
+  }
+
+  public void testExitStatus()
+    throws IOException
+  {
+    final Path dao = directory.resolve("Dao.java");
+    Files.write(dao, "class Dao { String q = \"select a from t\"; }"
+      .getBytes(StandardCharsets.UTF_8));
+    assertEquals(BatchCommand.NOT_FORMATTED, run(false));
+    assertEquals(0, run(true));
+    assertEquals(0, run(false));
+
+    // a file that cannot be checked fails the run
+    Files.write(directory.resolve("Latin1.java"), new byte[] {
+        'c', 'l', 'a', 's', 's', ' ', (byte) 0xE9, ' ', '{', '}',
+    });
+    assertEquals(BatchCommand.FAILED, run(false));
+    assertEquals(BatchCommand.FAILED, run(true));
+  }
+
+  private int run(final boolean write)
+    throws IOException
+  {
+    return new JavaSourceCommand(write)
+      .run(Collections.singletonList(directory),
+           1,
+           new PrintWriter(new StringWriter()),
+           new PrintWriter(new StringWriter()));
+  }
+
+}
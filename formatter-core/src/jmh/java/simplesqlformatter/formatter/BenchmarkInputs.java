@@ -0,0 +1,139 @@
+/*
+ * Copyright 2004-2013, Sualeh Fatehi <sualeh@hotmail.com>
+ * This work is licensed under the Creative Commons Attribution-Noncommercial-No Derivative Works 3.0 License.
+ * To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/3.0/
+ * or send a letter to Creative Commons, 543 Howard Street, 5th Floor, San Francisco, California, 94105, USA.
+ */
+package simplesqlformatter.formatter;
+
+
+/**
+ * Generates SQL inputs for the benchmarks. Inputs are named by a shape
+ * and a size, such as "nested-10MB". The output is always the same for
+ * the same name, so that results can be compared between runs.
+ *
+ * @author Sualeh Fatehi
+ */
+final class BenchmarkInputs
+{
+
+  private final static String ONE_LINE = "select a, b from t where c = 1";
+
+  private final static String QUERY = "-- orders by customer\n"
+                                      + "select c.name, count(o.id) as orders, sum(o.total) as total\n"
+                                      + "from customers c\n"
+                                      + "left outer join orders o on o.customer_id = c.id\n"
+                                      + "inner join regions r on r.id = c.region_id\n"
+                                      + "where r.name in ('North', 'South', 'It''s east')\n"
+                                      + "and o.created between '2013-01-01' and '2013-12-31'\n"
+                                      + "and not exists (select 1 from refunds f where f.order_id = o.id)\n"
+                                      + "/* only large customers */\n"
+                                      + "group by c.name\n"
+                                      + "having sum(o.total) > 1000\n"
+                                      + "order by total desc";
+
+  /**
+   * Depth of the sub-selects in the nested input.
+   */
+  private final static int NESTING_DEPTH = 24;
+
+  private final static int MB = 1024 * 1024;
+
+  /**
+   * Generates the named input.
+   *
+   * @param name
+   *        Name of the input
+   * @return SQL text
+   */
+  static String generate(final String name)
+  {
+    if (name.equals("oneLine"))
+    {
+      return ONE_LINE;
+    }
+    else if (name.equals("query"))
+    {
+      return QUERY;
+    }
+
+    final int dash = name.indexOf('-');
+    final String shape = name.substring(0, dash);
+    final int size = Integer.parseInt(name.substring(dash + 1,
+                                                     name.length() - 2)) *
+                     MB;
+    if (shape.equals("script"))
+    {
+      return script(size);
+    }
+    else if (shape.equals("nested"))
+    {
+      return nested(size);
+    }
+    else if (shape.equals("inList"))
+    {
+      return inList(size);
+    }
+    throw new IllegalArgumentException("Unknown input, " + name);
+  }
+
+  private static String inList(final int size)
+  {
+    final StringBuilder buffer = new StringBuilder(size + 64);
+    buffer.append("select id, name from customers where id in (");
+    for (int i = 0; buffer.length() < size; i++)
+    {
+      if (i > 0)
+      {
+        buffer.append(", ");
+      }
+      if (i % 10 == 9)
+      {
+        buffer.append("'C").append(i).append('\'');
+      }
+      else
+      {
+        buffer.append(i);
+      }
+    }
+    buffer.append(')');
+    return buffer.toString();
+  }
+
+  private static String nested(final int size)
+  {
+    final StringBuilder buffer = new StringBuilder(size + 1024);
+    for (int i = 0; buffer.length() < size; i++)
+    {
+      buffer.append("select a").append(i).append(" from t where x in ");
+      for (int depth = 0; depth < NESTING_DEPTH; depth++)
+      {
+        buffer.append("(select coalesce(b, max(c)) from t").append(depth)
+          .append(" where y = ");
+      }
+      buffer.append("1");
+      for (int depth = 0; depth < NESTING_DEPTH; depth++)
+      {
+        buffer.append(" and z = 'q')");
+      }
+      buffer.append("\nunion all\n");
+    }
+    buffer.append("select 1 from dual");
+    return buffer.toString();
+  }
+
+  private static String script(final int size)
+  {
+    final StringBuilder buffer = new StringBuilder(size + QUERY.length());
+    while (buffer.length() < size)
+    {
+      buffer.append(QUERY).append(";\n");
+    }
+    return buffer.toString();
+  }
+
+  private BenchmarkInputs()
+  {
+  }
+
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2004-2013, Sualeh Fatehi <sualeh@hotmail.com>
+ * This work is licensed under the Creative Commons Attribution-Noncommercial-No Derivative Works 3.0 License.
+ * To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/3.0/
+ * or send a letter to Creative Commons, 543 Howard Street, 5th Floor, San Francisco, California, 94105, USA.
+ */
+package simplesqlformatter.formatter;
+
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks the public entry points of the formatter.
+ *
+ * @author Sualeh Fatehi
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FormatterBenchmark
+{
+
+  /**
+   * Writer that only counts characters, so that writing costs nothing.
+   */
+  private final static class CountingWriter
+    extends Writer
+  {
+
+    private long count;
+
+    @Override
+    public void close()
+    {
+    }
+
+    @Override
+    public void flush()
+    {
+    }
+
+    @Override
+    public void write(final char[] buffer, final int offset, final int length)
+    {
+      count = count + length;
+    }
+
+    @Override
+    public void write(final String string)
+    {
+      count = count + string.length();
+    }
+
+  }
+
+  @Param({
+      "oneLine",
+      "query",
+      "script-1MB",
+      "nested-10MB",
+      "inList-10MB",
+      "script-10MB",
+  })
+  public String input;
+
+  private String sql;
+  private SQLFormatter formatter;
+
+  @Benchmark
+  public String format()
+  {
+    return formatter.format(sql);
+  }
+
+  @Benchmark
+  public long formatScript()
+    throws IOException
+  {
+    final CountingWriter writer = new CountingWriter();
+    formatter.formatScript(new StringReader(sql), writer);
+    return writer.count;
+  }
+
+  @Benchmark
+  public long formatStream()
+    throws IOException
+  {
+    final CountingWriter writer = new CountingWriter();
+    formatter.format(new StringReader(sql), writer);
+    return writer.count;
+  }
+
+  @Benchmark
+  public boolean isSQL()
+  {
+    return formatter.isSQL(sql);
+  }
+
+  @Benchmark
+  public void parse(final Blackhole blackhole)
+  {
+    blackhole.consume(formatter.parse(sql));
+  }
+
+  @Setup
+  public void setUp()
+  {
+    sql = BenchmarkInputs.generate(input);
+    formatter = new SQLFormatter();
+  }
+
+}
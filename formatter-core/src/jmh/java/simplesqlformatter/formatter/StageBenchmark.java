@@ -0,0 +1,149 @@
+/*
+ * Copyright 2004-2013, Sualeh Fatehi <sualeh@hotmail.com>
+ * This work is licensed under the Creative Commons Attribution-Noncommercial-No Derivative Works 3.0 License.
+ * To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/3.0/
+ * or send a letter to Creative Commons, 543 Howard Street, 5th Floor, San Francisco, California, 94105, USA.
+ */
+package simplesqlformatter.formatter;
+
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks each stage of the formatter on its own, by running the
+ * stages up to and including the one being measured. The cost of a
+ * stage is the difference from the benchmark of the stage before it.
+ *
+ * @author Sualeh Fatehi
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StageBenchmark
+{
+
+  @Param({
+      "oneLine",
+      "query",
+      "script-1MB",
+      "nested-10MB",
+      "inList-10MB",
+      "script-10MB",
+  })
+  public String input;
+
+  private String sql;
+  private FormatterOptions options;
+  private TokenBuffer tokens;
+
+  /**
+   * Scans for literals, which splits the text into spans.
+   */
+  @Benchmark
+  public int scanLiterals()
+  {
+    final LiteralScanner scanner = new LiteralScanner(sql);
+    int spans = 0;
+    while (scanner.next())
+    {
+      spans++;
+    }
+    return spans;
+  }
+
+  /**
+   * Splits the text into tokens, and classifies keywords.
+   */
+  @Benchmark
+  public int lex()
+  {
+    tokens.reset(sql);
+    final SQLLexer lexer = new SQLLexer(sql);
+    int roles = 0;
+    while (lexer.next(tokens))
+    {
+      final int token = tokens.size() - 1;
+      if (tokens.is(token, Keywords.KEYWORD))
+      {
+        roles++;
+      }
+      tokens.release(token);
+    }
+    return roles;
+  }
+
+  /**
+   * Lays out the tokens, without building any text.
+   */
+  @Benchmark
+  public void layout(final Blackhole blackhole)
+  {
+    tokens.reset(sql);
+    final SQLLexer lexer = new SQLLexer(sql);
+    final LayoutEngine engine = new LayoutEngine(tokens,
+                                                 new LayoutEngine.TokenHandler()
+    {
+      public void handle(final TokenBuffer buffer, final int index)
+      {
+        blackhole.consume(buffer.getIndentLevel(index));
+      }
+    });
+    engine.start();
+    while (lexer.next(tokens))
+    {
+      engine.add(tokens.size() - 1);
+    }
+    engine.finish(sql.length());
+  }
+
+  /**
+   * Lays out the tokens, and builds the text of each one.
+   */
+  @Benchmark
+  public int build()
+  {
+    final StringBuilder text = new StringBuilder(sql.length() * 2);
+    tokens.reset(sql);
+    final SQLLexer lexer = new SQLLexer(sql);
+    final LayoutEngine engine = new LayoutEngine(tokens,
+                                                 new LayoutEngine.TokenHandler()
+    {
+      public void handle(final TokenBuffer buffer, final int index)
+      {
+        buffer.build(index, text, options);
+      }
+    });
+    engine.start();
+    while (lexer.next(tokens))
+    {
+      engine.add(tokens.size() - 1);
+    }
+    engine.finish(sql.length());
+    return text.length();
+  }
+
+  @Setup
+  public void setUp()
+  {
+    sql = BenchmarkInputs.generate(input);
+    options = FormatterOptions.DEFAULT;
+    tokens = new TokenBuffer();
+  }
+
+}
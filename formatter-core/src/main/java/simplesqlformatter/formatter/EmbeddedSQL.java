@@ -0,0 +1,120 @@
+/*
+ * Copyright 2004-2013, Sualeh Fatehi <sualeh@hotmail.com>
+ * This work is licensed under the Creative Commons Attribution-Noncommercial-No Derivative Works 3.0 License.
+ * To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/3.0/
+ * or send a letter to Creative Commons, 543 Howard Street, 5th Floor, San Francisco, California, 94105, USA.
+ */
+package simplesqlformatter.formatter;
+
+
+/**
+ * A SQL statement found in Java source, in a string literal, a text
+ * block, or several of them joined with +.
+ *
+ * @author Sualeh Fatehi
+ */
+public final class EmbeddedSQL
+{
+
+  private final int start;
+  private final int end;
+  private final int line;
+  private final String source;
+  private final String sql;
+  private final String replacement;
+
+  EmbeddedSQL(final int start,
+              final int end,
+              final int line,
+              final String source,
+              final String sql,
+              final String replacement)
+  {
+    this.start = start;
+    this.end = end;
+    this.line = line;
+    this.source = source;
+    this.sql = sql;
+    this.replacement = replacement;
+  }
+
+  /**
+   * Gets the offset in the Java source just after the last literal.
+   *
+   * @return End offset
+   */
+  public int getEnd()
+  {
+    return end;
+  }
+
+  /**
+   * Gets the line of the Java source that the first literal is on,
+   * starting from 1.
+   *
+   * @return Line number
+   */
+  public int getLine()
+  {
+    return line;
+  }
+
+  /**
+   * Gets the Java source for the formatted statement, which replaces
+   * the literals.
+   *
+   * @return Java source
+   */
+  public String getReplacement()
+  {
+    return replacement;
+  }
+
+  /**
+   * Gets the Java source of the literals, as they are.
+   *
+   * @return Java source
+   */
+  public String getSource()
+  {
+    return source;
+  }
+
+  /**
+   * Gets the value of the literals, which is the SQL statement.
+   *
+   * @return SQL statement
+   */
+  public String getSQL()
+  {
+    return sql;
+  }
+
+  /**
+   * Gets the offset in the Java source of the first literal.
+   *
+   * @return Start offset
+   */
+  public int getStart()
+  {
+    return start;
+  }
+
+  /**
+   * Checks whether the statement is already formatted, so that the
+   * replacement is the same as the source.
+   *
+   * @return Whether the statement is formatted
+   */
+  public boolean isFormatted()
+  {
+    return source.equals(replacement);
+  }
+
+  @Override
+  public String toString()
+  {
+    return line + ": " + sql;
+  }
+
+}
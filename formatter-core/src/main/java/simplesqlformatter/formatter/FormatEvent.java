@@ -0,0 +1,109 @@
+/*
+ * Copyright 2004-2013, Sualeh Fatehi <sualeh@hotmail.com>
+ * This work is licensed under the Creative Commons Attribution-Noncommercial-No Derivative Works 3.0 License.
+ * To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/3.0/
+ * or send a letter to Creative Commons, 543 Howard Street, 5th Floor, San Francisco, California, 94105, USA.
+ */
+package simplesqlformatter.formatter;
+
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for formatting a statement. The event spans
+ * the whole call, so it can be lined up with garbage collections and
+ * with the request that formatted the statement.
+ * <p>
+ * The event is off unless the settings of a recording turn it on, such
+ * as a settings file given with
+ * <code>-XX:StartFlightRecording:settings=&lt;file&gt;</code>, so that
+ * an always-on recording of the usual events does not slow down
+ * formatting.
+ *
+ * @author Sualeh Fatehi
+ */
+@Name("simplesqlformatter.Format")
+@Label("Format SQL")
+@Category("Simple SQL Formatter")
+@Description("Formats a SQL statement")
+@Enabled(false)
+final class FormatEvent
+  extends Event
+{
+
+  private static final EventType FORMAT_TYPE = EventType
+    .getEventType(FormatEvent.class);
+  private static final EventType STAGE_TYPE = EventType
+    .getEventType(FormatStageEvent.class);
+
+  @Label("Input Length")
+  @Description("Length of the input, in characters")
+  int inputLength;
+
+  @Label("Token Count")
+  @Description("Number of tokens, including literals")
+  int tokenCount;
+
+  @Label("Literal Count")
+  @Description("Number of string literals and comments")
+  int literalCount;
+
+  @Label("Nesting Depth")
+  @Description("Deepest nesting of parentheses, including sub-selects")
+  int maxDepth;
+
+  /**
+   * Checks whether formatting events of any kind are being recorded.
+   *
+   * @return Whether formatting events are recorded
+   */
+  static boolean isRecording()
+  {
+    return FORMAT_TYPE.isEnabled() || STAGE_TYPE.isEnabled();
+  }
+
+  /**
+   * Ends the event, and records it along with an event for each stage.
+   *
+   * @param stats
+   *        Statistics for the statement
+   */
+  void record(final FormatStats stats)
+  {
+    end();
+    if (shouldCommit())
+    {
+      inputLength = stats.getInputLength();
+      tokenCount = stats.getTokenCount();
+      literalCount = stats.getLiteralCount();
+      maxDepth = stats.getMaxDepth();
+      commit();
+    }
+
+    if (!STAGE_TYPE.isEnabled())
+    {
+      return;
+    }
+    for (final FormatStats.Stage stage: FormatStats.Stage.values())
+    {
+      final FormatStageEvent stageEvent = new FormatStageEvent();
+      if (stageEvent.shouldCommit())
+      {
+        stageEvent.stage = stage.name();
+        stageEvent.time = stats.getTime(stage);
+        stageEvent.allocatedBytes = stats.getAllocatedBytes(stage);
+        stageEvent.inputLength = stats.getInputLength();
+        stageEvent.tokenCount = stats.getTokenCount();
+        stageEvent.maxDepth = stats.getMaxDepth();
+        stageEvent.commit();
+      }
+    }
+  }
+
+}
@@ -0,0 +1,30 @@
+/*
+ * Copyright 2004-2013, Sualeh Fatehi <sualeh@hotmail.com>
+ * This work is licensed under the Creative Commons Attribution-Noncommercial-No Derivative Works 3.0 License.
+ * To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/3.0/
+ * or send a letter to Creative Commons, 543 Howard Street, 5th Floor, San Francisco, California, 94105, USA.
+ */
+package simplesqlformatter.formatter;
+
+
+/**
+ * Receives statistics for each statement that is formatted. A listener
+ * is called on the thread that formatted the statement, so it may be
+ * called from many threads at once when a script is formatted in
+ * parallel.
+ *
+ * @author Sualeh Fatehi
+ * @see SQLFormatter#setFormatListener(FormatListener)
+ */
+public interface FormatListener
+{
+
+  /**
+   * Called after a statement has been formatted.
+   *
+   * @param stats
+   *        Statistics for the statement
+   */
+  void formatted(FormatStats stats);
+
+}
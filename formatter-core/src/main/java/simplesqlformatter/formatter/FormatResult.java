@@ -0,0 +1,83 @@
+/*
+ * Copyright 2004-2013, Sualeh Fatehi <sualeh@hotmail.com>
+ * This work is licensed under the Creative Commons Attribution-Noncommercial-No Derivative Works 3.0 License.
+ * To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/3.0/
+ * or send a letter to Creative Commons, 543 Howard Street, 5th Floor, San Francisco, California, 94105, USA.
+ */
+package simplesqlformatter.formatter;
+
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Result of formatting a SQL statement: the formatted text, the tokens
+ * with their layout, and statistics for the statement, all from a
+ * single parse.
+ *
+ * @author Sualeh Fatehi
+ */
+public final class FormatResult
+{
+
+  private final String text;
+  private final List<Token> tokens;
+  private final FormatStats stats;
+
+  FormatResult(final String text,
+               final List<Token> tokens,
+               final FormatStats stats)
+  {
+    this.text = text;
+    this.tokens = Collections.unmodifiableList(tokens);
+    this.stats = stats;
+  }
+
+  /**
+   * Gets statistics for the statement, including the time and
+   * allocations of each stage.
+   *
+   * @return Statistics
+   */
+  public FormatStats getStats()
+  {
+    return stats;
+  }
+
+  /**
+   * Gets the formatted text, which is the same as the text returned by
+   * {@link SQLFormatter#format(String)}.
+   *
+   * @return Formatted SQL statement
+   */
+  public String getText()
+  {
+    return text;
+  }
+
+  /**
+   * Gets the tokens of the statement, with their layout, in the same
+   * form as {@link SQLFormatter#parse(String)}, with an empty token at
+   * each end. Tokens are read from the statement after a Java string
+   * has been unwrapped. Text that is not SQL is laid out as if it were
+   * SQL, even though it is not formatted.
+   *
+   * @return Tokens, which cannot be modified
+   */
+  public List<Token> getTokens()
+  {
+    return tokens;
+  }
+
+  /**
+   * Returns the formatted text.
+   *
+   * @return Formatted SQL statement
+   */
+  @Override
+  public String toString()
+  {
+    return text;
+  }
+
+}
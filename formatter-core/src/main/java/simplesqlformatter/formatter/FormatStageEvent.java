@@ -0,0 +1,65 @@
+/*
+ * Copyright 2004-2013, Sualeh Fatehi <sualeh@hotmail.com>
+ * This work is licensed under the Creative Commons Attribution-Noncommercial-No Derivative Works 3.0 License.
+ * To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/3.0/
+ * or send a letter to Creative Commons, 543 Howard Street, 5th Floor, San Francisco, California, 94105, USA.
+ */
+package simplesqlformatter.formatter;
+
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event for one stage of formatting a statement. The
+ * event does not span the stage; it is recorded when the statement is
+ * done, with the totals of the stage, and without a stack trace, which
+ * would be the same as that of the {@link FormatEvent}. Like that event,
+ * it is off unless it is turned on.
+ *
+ * @author Sualeh Fatehi
+ */
+@Name("simplesqlformatter.FormatStage")
+@Label("Format SQL Stage")
+@Category("Simple SQL Formatter")
+@Description("Totals for one stage of formatting a SQL statement")
+@Enabled(false)
+@StackTrace(false)
+final class FormatStageEvent
+  extends Event
+{
+
+  @Label("Stage")
+  @Description("CLEAN, LEX, LAYOUT or BUILD")
+  String stage;
+
+  @Label("Time")
+  @Description("Total wall time of the stage")
+  @Timespan(Timespan.NANOSECONDS)
+  long time;
+
+  @Label("Allocated")
+  @Description("Bytes allocated by the stage, or -1 if not measured")
+  @DataAmount(DataAmount.BYTES)
+  long allocatedBytes;
+
+  @Label("Input Length")
+  @Description("Length of the input, in characters")
+  int inputLength;
+
+  @Label("Token Count")
+  @Description("Number of tokens, including literals")
+  int tokenCount;
+
+  @Label("Nesting Depth")
+  @Description("Deepest nesting of parentheses, including sub-selects")
+  int maxDepth;
+
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2004-2013, Sualeh Fatehi <sualeh@hotmail.com>
+ * This work is licensed under the Creative Commons Attribution-Noncommercial-No Derivative Works 3.0 License.
+ * To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/3.0/
+ * or send a letter to Creative Commons, 543 Howard Street, 5th Floor, San Francisco, California, 94105, USA.
+ */
+package simplesqlformatter.formatter;
+
+
+/**
+ * Statistics for formatting a statement, with the wall time and the
+ * allocated bytes for each stage. Lexing, layout and building run
+ * interleaved in a single pass over the tokens, which is measured as a
+ * whole, as the lexing stage; the layout and building stages are what
+ * is left of them once all the tokens have been read.
+ *
+ * @author Sualeh Fatehi
+ */
+public final class FormatStats
+{
+
+  /**
+   * Stages of formatting.
+   */
+  public enum Stage
+  {
+
+    /**
+     * Trims the statement, and unwraps Java strings.
+     */
+    CLEAN,
+    /**
+     * Scans literals, and splits the text into tokens; this includes
+     * reading text from a reader, and the layout and building of each
+     * token that can be laid out as soon as it has been read.
+     */
+    LEX,
+    /**
+     * Decides the line breaks and indents of the tokens that are left
+     * at the end of the statement.
+     */
+    LAYOUT,
+    /**
+     * Makes the formatted text, or writes out the rest of it.
+     */
+    BUILD;
+
+  }
+
+  private final long[] times;
+  private final long[] allocatedBytes;
+  private final int inputLength;
+  private final int tokenCount;
+  private final int literalCount;
+  private final int maxDepth;
+
+  FormatStats(final long[] times,
+              final long[] allocatedBytes,
+              final int inputLength,
+              final int tokenCount,
+              final int literalCount,
+              final int maxDepth)
+  {
+    this.times = times;
+    this.allocatedBytes = allocatedBytes;
+    this.inputLength = inputLength;
+    this.tokenCount = tokenCount;
+    this.literalCount = literalCount;
+    this.maxDepth = maxDepth;
+  }
+
+  /**
+   * Gets the bytes allocated by a stage, on the formatting thread.
+   *
+   * @param stage
+   *        Stage of formatting
+   * @return Allocated bytes, or -1 if the virtual machine does not
+   *         measure allocations
+   */
+  public long getAllocatedBytes(final Stage stage)
+  {
+    return allocatedBytes[stage.ordinal()];
+  }
+
+  /**
+   * Gets the length of the input, in characters.
+   *
+   * @return Length of the input
+   */
+  public int getInputLength()
+  {
+    return inputLength;
+  }
+
+  /**
+   * Gets the number of literals, that is, string literals and comments.
+   *
+   * @return Number of literals
+   */
+  public int getLiteralCount()
+  {
+    return literalCount;
+  }
+
+  /**
+   * Gets the deepest nesting of parentheses, including sub-selects.
+   *
+   * @return Deepest nesting
+   */
+  public int getMaxDepth()
+  {
+    return maxDepth;
+  }
+
+  /**
+   * Gets the wall time spent in a stage.
+   *
+   * @param stage
+   *        Stage of formatting
+   * @return Time in nanoseconds
+   */
+  public long getTime(final Stage stage)
+  {
+    return times[stage.ordinal()];
+  }
+
+  /**
+   * Gets the number of tokens, including literals.
+   *
+   * @return Number of tokens
+   */
+  public int getTokenCount()
+  {
+    return tokenCount;
+  }
+
+  /**
+   * Gets the total wall time for all stages.
+   *
+   * @return Time in nanoseconds
+   */
+  public long getTotalTime()
+  {
+    long totalTime = 0;
+    for (final long time: times)
+    {
+      totalTime = totalTime + time;
+    }
+    return totalTime;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString()
+  {
+    final StringBuilder buffer = new StringBuilder();
+    buffer.append("length=").append(inputLength).append(", tokens=")
+      .append(tokenCount).append(", literals=")
+      .append(literalCount).append(", depth=").append(maxDepth);
+    for (final Stage stage: Stage.values())
+    {
+      buffer.append(", ").append(stage.name().toLowerCase()).append('=')
+        .append(getTime(stage) / 1000).append("us");
+      if (getAllocatedBytes(stage) >= 0)
+      {
+        buffer.append('/').append(getAllocatedBytes(stage)).append('B');
+      }
+    }
+    return buffer.toString();
+  }
+
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright 2004-2013, Sualeh Fatehi <sualeh@hotmail.com>
+ * This work is licensed under the Creative Commons Attribution-Noncommercial-No Derivative Works 3.0 License.
+ * To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/3.0/
+ * or send a letter to Creative Commons, 543 Howard Street, 5th Floor, San Francisco, California, 94105, USA.
+ */
+package simplesqlformatter.formatter;
+
+
+/**
+ * Settings for formatting SQL. Options cannot be changed once they have
+ * been built, so they can be shared between threads. Options are built
+ * with a {@link Builder}, starting from the defaults, or from other
+ * options.
+ *
+ * @author Sualeh Fatehi
+ */
+public final class FormatterOptions
+{
+
+  /**
+   * Builds formatter options.
+   */
+  public static final class Builder
+  {
+
+    private String indent;
+    private KeywordCase keywordCase;
+    private String lineSeparator;
+
+    private Builder(final FormatterOptions options)
+    {
+      indent = options.indent;
+      keywordCase = options.keywordCase;
+      lineSeparator = options.lineSeparator;
+    }
+
+    /**
+     * Builds the options.
+     *
+     * @return Formatter options
+     */
+    public FormatterOptions build()
+    {
+      return new FormatterOptions(indent, keywordCase, lineSeparator);
+    }
+
+    /**
+     * Sets the indent, in number of spaces. Any negative value indicates
+     * indentation by a tab character.
+     *
+     * @param size
+     *        Indent size
+     * @return This builder
+     */
+    public Builder indent(final int size)
+    {
+      if (size < 0)
+      {
+        return indent(TAB);
+      }
+      else
+      {
+        return indent(" ".repeat(size));
+      }
+    }
+
+    /**
+     * Sets the text of one level of indent.
+     *
+     * @param indent
+     *        Indent, such as a tab or spaces
+     * @return This builder
+     */
+    public Builder indent(final String indent)
+    {
+      if (indent == null)
+      {
+        throw new IllegalArgumentException("No indent provided");
+      }
+      this.indent = indent;
+      return this;
+    }
+
+    /**
+     * Sets the case of keywords.
+     *
+     * @param keywordCase
+     *        Case of keywords
+     * @return This builder
+     */
+    public Builder keywordCase(final KeywordCase keywordCase)
+    {
+      if (keywordCase == null)
+      {
+        throw new IllegalArgumentException("No keyword case provided");
+      }
+      this.keywordCase = keywordCase;
+      return this;
+    }
+
+    /**
+     * Sets the text that ends each line of formatted SQL.
+     *
+     * @param lineSeparator
+     *        Line separator, such as "\n" or "\r\n"
+     * @return This builder
+     */
+    public Builder lineSeparator(final String lineSeparator)
+    {
+      if (lineSeparator == null || lineSeparator.length() == 0)
+      {
+        throw new IllegalArgumentException("No line separator provided");
+      }
+      this.lineSeparator = lineSeparator;
+      return this;
+    }
+
+  }
+
+  /**
+   * Case of keywords in formatted SQL.
+   */
+  public enum KeywordCase
+  {
+
+    /** Keywords in upper case. */
+    UPPER,
+    /** Keywords in lower case. */
+    LOWER,
+    /** Keywords as they appear in the original SQL. */
+    PRESERVE;
+
+  }
+
+  private final static String TAB = "\t";
+
+  /**
+   * Default options: an indent of two spaces, upper case keywords, and
+   * lines that end with a newline.
+   */
+  public final static FormatterOptions DEFAULT = new FormatterOptions("  ",
+                                                                      KeywordCase.UPPER,
+                                                                      "\n");
+
+  /**
+   * Starts building options from the defaults.
+   *
+   * @return Builder for options
+   */
+  public static Builder builder()
+  {
+    return DEFAULT.toBuilder();
+  }
+
+  private final String indent;
+  private final KeywordCase keywordCase;
+  private final String lineSeparator;
+  private final IndentTable indents;
+
+  private FormatterOptions(final String indent,
+                           final KeywordCase keywordCase,
+                           final String lineSeparator)
+  {
+    this.indent = indent;
+    this.keywordCase = keywordCase;
+    this.lineSeparator = lineSeparator;
+    indents = new IndentTable(indent);
+  }
+
+  /**
+   * Gets the text of one level of indent.
+   *
+   * @return Indent
+   */
+  public String getIndent()
+  {
+    return indent;
+  }
+
+  /**
+   * Gets the case of keywords.
+   *
+   * @return Case of keywords
+   */
+  public KeywordCase getKeywordCase()
+  {
+    return keywordCase;
+  }
+
+  /**
+   * Gets the text that ends each line of formatted SQL.
+   *
+   * @return Line separator
+   */
+  public String getLineSeparator()
+  {
+    return lineSeparator;
+  }
+
+  /**
+   * Starts building options from these options.
+   *
+   * @return Builder for options
+   */
+  public Builder toBuilder()
+  {
+    return new Builder(this);
+  }
+
+  /**
+   * Gets the indent strings for each level.
+   *
+   * @return Indent table
+   */
+  IndentTable getIndentTable()
+  {
+    return indents;
+  }
+
+  /**
+   * Checks whether the indent is a tab.
+   *
+   * @return Whether the indent is a tab
+   */
+  boolean isTabIndent()
+  {
+    return indent.equals(TAB);
+  }
+
+}
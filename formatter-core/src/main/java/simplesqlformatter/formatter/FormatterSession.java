@@ -0,0 +1,670 @@
+/*
+ * Copyright 2004-2013, Sualeh Fatehi <sualeh@hotmail.com>
+ * This work is licensed under the Creative Commons Attribution-Noncommercial-No Derivative Works 3.0 License.
+ * To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/3.0/
+ * or send a letter to Creative Commons, 543 Howard Street, 5th Floor, San Francisco, California, 94105, USA.
+ */
+package simplesqlformatter.formatter;
+
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+import jdk.jfr.FlightRecorder;
+
+import simplesqlformatter.formatter.FormatStats.Stage;
+
+/**
+ * Formats statements with the settings of a formatter, reusing the
+ * same working buffers for every statement. Formatting many short
+ * statements in a session allocates little more than the formatted
+ * strings.
+ * <p>
+ * A session is owned by one thread at a time, and must not be used by
+ * another thread while a statement is being formatted. A session for a
+ * formatter is made by {@link SQLFormatter#newSession()}. Formatters
+ * also share a session for each thread, which is given the settings
+ * with each statement, and so does not keep any formatter alive.
+ *
+ * @author Sualeh Fatehi
+ */
+public final class FormatterSession
+{
+
+  /**
+   * Builds laid out tokens into the output buffer, and writes the
+   * buffer out when it is full, if the statement is being streamed.
+   */
+  private final class Builder
+    implements LayoutEngine.TokenHandler
+  {
+
+    public void handle(final TokenBuffer buffer, final int index)
+    {
+      buffer.build(index, text, options);
+      if (laidOut != null)
+      {
+        laidOut.add(buffer.toToken(index, options.getKeywordCase()));
+      }
+      if (streaming)
+      {
+        if (text.length() >= CHUNK_SIZE)
+        {
+          try
+          {
+            output.append(text);
+          }
+          catch (final IOException e)
+          {
+            throw new WriteException(e);
+          }
+          text.setLength(0);
+        }
+        window.release(buffer.getEnd(index));
+      }
+    }
+
+  }
+
+  /**
+   * Carries an exception from the writer out of a token handler.
+   */
+  private static final class WriteException
+    extends RuntimeException
+  {
+
+    private static final long serialVersionUID = -2376424137462416937L;
+
+    WriteException(final IOException cause)
+    {
+      super(cause);
+    }
+
+    @Override
+    public IOException getCause()
+    {
+      return (IOException) super.getCause();
+    }
+
+  }
+
+  private final static int CHUNK_SIZE = 8192;
+  /**
+   * Largest output buffer that is kept between statements, so that one
+   * long statement does not hold on to memory.
+   */
+  private final static int RETAINED_CAPACITY = 1 << 16;
+
+  private static boolean isSQL(final TokenBuffer tokens, final int firstToken)
+  {
+    return tokens.is(firstToken, Keywords.SELECT | Keywords.INSERT |
+                                 Keywords.UPDATE | Keywords.DELETE);
+  }
+
+  /**
+   * Checks whether formatting events are being recorded. The event
+   * classes are not loaded until the flight recorder has started, since
+   * registering them with the recorder costs more at startup than
+   * formatting a short statement.
+   */
+  private static boolean isRecording()
+  {
+    return FlightRecorder.isInitialized() && FormatEvent.isRecording();
+  }
+
+  /**
+   * Reports statistics for a statement to the listener, if there is
+   * one, and to the flight recorder.
+   */
+  private static void report(final FormatListener listener,
+                             final FormatEvent event,
+                             final FormatStats stats)
+  {
+    event.record(stats);
+    if (listener != null)
+    {
+      listener.formatted(stats);
+    }
+  }
+
+  /**
+   * Formatter whose settings the public methods use, or null for the
+   * session that formatters share on a thread.
+   */
+  private final SQLFormatter formatter;
+
+  private final TokenBuffer tokens = new TokenBuffer();
+  private final SQLLexer lexer = new SQLLexer("");
+  private final LayoutEngine engine = new LayoutEngine(tokens, new Builder());
+  private StringBuilder text = new StringBuilder(CHUNK_SIZE);
+  private TextWindow window;
+  private TrimmingAppendable output;
+
+  // settings and clock for the statement being formatted
+  private FormatterOptions options;
+  private StageClock clock;
+  private List<Token> laidOut;
+  private boolean streaming;
+  private boolean active;
+
+  FormatterSession(final SQLFormatter formatter)
+  {
+    this.formatter = formatter;
+  }
+
+  /**
+   * Formats a SQL statement, in the same way as
+   * {@link SQLFormatter#format(String)}.
+   *
+   * @param sql
+   *        SQL statement to format
+   * @return Formatted SQL statement
+   */
+  public String format(final String sql)
+  {
+    return format(sql, formatter.getOptions(), formatter.getFormatListener());
+  }
+
+  /**
+   * Formats a SQL statement read from a reader, and writes the formatted
+   * statement to a writer, in the same way as
+   * {@link SQLFormatter#format(Reader, Writer)}.
+   *
+   * @param in
+   *        Reader for the SQL statement to format
+   * @param out
+   *        Writer for the formatted SQL statement
+   * @throws IOException
+   *         On an exception reading or writing
+   */
+  public void format(final Reader in, final Writer out)
+    throws IOException
+  {
+    format(in, out, formatter.getOptions(), formatter.getFormatListener());
+  }
+
+  /**
+   * Formats a SQL statement, and keeps the tokens and the statistics of
+   * the statement, in the same way as
+   * {@link SQLFormatter#formatResult(String)}.
+   *
+   * @param sql
+   *        SQL statement to format
+   * @return Formatted text, tokens and statistics
+   */
+  public FormatResult formatResult(final String sql)
+  {
+    return formatResult(sql,
+                        formatter.getOptions(),
+                        formatter.getFormatListener());
+  }
+
+  /**
+   * Formats a SQL statement with the given settings.
+   */
+  String format(final String sql,
+                final FormatterOptions options,
+                final FormatListener listener)
+  {
+    begin(options);
+    try
+    {
+      if (listener == null && !isRecording())
+      {
+        return formatStatement(sql, null, null);
+      }
+
+      final FormatEvent event = new FormatEvent();
+      event.begin();
+      final StageClock clock = new StageClock();
+      final String formattedSql = formatStatement(sql, clock, null);
+      // the session is free again by the time the listener is called
+      end();
+      report(listener, event, clock.stop());
+      return formattedSql;
+    }
+    finally
+    {
+      end();
+    }
+  }
+
+  /**
+   * Formats a SQL statement from a reader to a writer with the given
+   * settings.
+   */
+  void format(final Reader in,
+              final Writer out,
+              final FormatterOptions options,
+              final FormatListener listener)
+    throws IOException
+  {
+    begin(options);
+    try
+    {
+      if (listener == null && !isRecording())
+      {
+        formatStatement(in, out, null);
+        return;
+      }
+
+      final FormatEvent event = new FormatEvent();
+      event.begin();
+      final StageClock clock = new StageClock();
+      formatStatement(in, out, clock);
+      // the session is free again by the time the listener is called
+      end();
+      report(listener, event, clock.stop());
+    }
+    finally
+    {
+      end();
+    }
+  }
+
+  /**
+   * Formats a SQL statement with the given settings, and keeps the
+   * tokens and the statistics of the statement.
+   */
+  FormatResult formatResult(final String sql,
+                            final FormatterOptions options,
+                            final FormatListener listener)
+  {
+    begin(options);
+    try
+    {
+      final FormatEvent event = new FormatEvent();
+      event.begin();
+      final StageClock clock = new StageClock();
+      final List<Token> tokens = new ArrayList<Token>();
+      final String formattedSql = formatStatement(sql, clock, tokens);
+      // the session is free again by the time the listener is called
+      end();
+      final FormatStats stats = clock.stop();
+      report(listener, event, stats);
+      return new FormatResult(formattedSql, tokens, stats);
+    }
+    finally
+    {
+      end();
+    }
+  }
+
+  /**
+   * Checks whether text is a SQL statement, in the same way as
+   * {@link SQLFormatter#isSQL(String)}.
+   *
+   * @param sql
+   *        Text to check
+   * @return True if the text is a SQL statement
+   */
+  public boolean isSQL(final String sql)
+  {
+    if (sql == null || sql.length() == 0)
+    {
+      return false;
+    }
+
+    begin(FormatterOptions.DEFAULT);
+    try
+    {
+      // literals are skipped, and plain SQL is only scanned as far as
+      // the first SQL token
+      tokens.reset(sql);
+      lexer.reset(sql);
+      while (lexer.next(tokens))
+      {
+        final int token = tokens.size() - 1;
+        if (!tokens.isLiteral(token))
+        {
+          return isSQL(tokens, token);
+        }
+        tokens.release(token + 1);
+      }
+      return false;
+    }
+    finally
+    {
+      end();
+    }
+  }
+
+  /**
+   * Checks whether text is a whole SQL statement, in the same way as
+   * {@link SQLFormatter#isStatement(String)}.
+   *
+   * @param sql
+   *        Text to check
+   * @return True if the text is a SQL statement
+   */
+  boolean isStatement(final String sql)
+  {
+    if (sql == null || sql.length() == 0)
+    {
+      return false;
+    }
+
+    begin(FormatterOptions.DEFAULT);
+    try
+    {
+      tokens.reset(sql);
+      lexer.reset(sql);
+      int clause = 0;
+      boolean needsTokenBefore = false;
+      int sqlTokens = 0;
+      boolean clauseFound = false;
+      while (lexer.next(tokens))
+      {
+        final int token = tokens.size() - 1;
+        if (clauseFound)
+        {
+          // the statement goes on after its clause
+          return true;
+        }
+        if (!tokens.isLiteral(token))
+        {
+          sqlTokens++;
+          if (sqlTokens == 1)
+          {
+            if (!isSQL(tokens, token))
+            {
+              return false;
+            }
+            // SELECT a FROM, INSERT INTO, UPDATE t SET, DELETE FROM
+            if (tokens.is(token, Keywords.SELECT))
+            {
+              clause = Keywords.FROM;
+              needsTokenBefore = true;
+            }
+            else if (tokens.is(token, Keywords.INSERT))
+            {
+              clause = Keywords.INTO;
+              clauseFound = tokens.is(token, Keywords.INTO);
+            }
+            else if (tokens.is(token, Keywords.UPDATE))
+            {
+              clause = Keywords.SET;
+              needsTokenBefore = true;
+            }
+            else
+            {
+              clause = Keywords.FROM;
+            }
+          }
+          else if (tokens.is(token, clause))
+          {
+            if (needsTokenBefore && sqlTokens == 2)
+            {
+              return false;
+            }
+            clauseFound = true;
+          }
+          else if (!needsTokenBefore)
+          {
+            // the clause follows straight after the first keyword
+            return false;
+          }
+        }
+        tokens.release(token + 1);
+      }
+      return false;
+    }
+    finally
+    {
+      end();
+    }
+  }
+
+  /**
+   * Checks whether a statement is being formatted in this session.
+   *
+   * @return Whether the session is in use
+   */
+  boolean isActive()
+  {
+    return active;
+  }
+
+  private void begin(final FormatterOptions options)
+  {
+    if (active)
+    {
+      throw new IllegalStateException("Session is already formatting a statement");
+    }
+    active = true;
+    this.options = options;
+  }
+
+  /**
+   * Lets go of the statement, and of the reader and writer, so that the
+   * session only keeps its buffers.
+   */
+  private void end()
+  {
+    if (!active)
+    {
+      return;
+    }
+    tokens.reset("");
+    lexer.reset("");
+    if (window != null)
+    {
+      window.reset(null);
+    }
+    if (output != null)
+    {
+      output.reset(null);
+    }
+    streaming = false;
+    if (text.capacity() > RETAINED_CAPACITY)
+    {
+      text = new StringBuilder(CHUNK_SIZE);
+    }
+    text.setLength(0);
+    clock = null;
+    laidOut = null;
+    active = false;
+  }
+
+  /**
+   * Formats a SQL statement, measuring the stages on a clock, if there
+   * is one, and keeping the laid out tokens in a list, if there is one.
+   * Text that is not SQL is still laid out when the tokens are kept.
+   */
+  private String formatStatement(final String sql,
+                                 final StageClock clock,
+                                 final List<Token> laidOut)
+  {
+
+    this.clock = clock;
+    this.laidOut = laidOut;
+    if (clock != null)
+    {
+      clock.setInputLength(sql.length());
+      clock.switchTo(Stage.CLEAN);
+    }
+    final String cleanedSql = SQLFormatter.cleanString(sql);
+    if (clock != null)
+    {
+      clock.switchTo(Stage.LEX);
+    }
+
+    text.setLength(0);
+    tokens.reset(cleanedSql);
+    lexer.reset(cleanedSql);
+    engine.start();
+
+    boolean checked = false;
+    boolean isSQL = false;
+    while (lexer.next(tokens))
+    {
+      final int token = tokens.size() - 1;
+      if (clock != null)
+      {
+        clock.count(tokens.isLiteral(token));
+      }
+      if (!checked && !tokens.isLiteral(token))
+      {
+        // check the first SQL token, before doing any more work
+        isSQL = isSQL(tokens, token);
+        checked = true;
+        if (!isSQL && laidOut == null)
+        {
+          return cleanedSql;
+        }
+      }
+      engine.add(token);
+    }
+    if (!isSQL && laidOut == null)
+    {
+      return cleanedSql;
+    }
+    if (clock != null)
+    {
+      clock.switchTo(Stage.LAYOUT);
+    }
+    engine.finish(cleanedSql.length());
+    if (clock != null)
+    {
+      clock.setMaxDepth(engine.getMaxDepth());
+      clock.switchTo(Stage.BUILD);
+    }
+    if (!isSQL)
+    {
+      return cleanedSql;
+    }
+
+    // trim, in the same copy that makes the string
+    int start = 0;
+    int end = text.length();
+    while (start < end && text.charAt(start) <= ' ')
+    {
+      start++;
+    }
+    while (end > start && text.charAt(end - 1) <= ' ')
+    {
+      end--;
+    }
+    return text.substring(start, end);
+
+  }
+
+  /**
+   * Formats a SQL statement from a reader to a writer, measuring the
+   * stages on a clock, if there is one.
+   */
+  private void formatStatement(final Reader in,
+                               final Writer out,
+                               final StageClock clock)
+    throws IOException
+  {
+    this.clock = clock;
+    if (clock != null)
+    {
+      clock.switchTo(Stage.LEX);
+    }
+
+    if (window == null)
+    {
+      window = new TextWindow(in);
+    }
+    else
+    {
+      window.reset(in);
+    }
+    if (window.fill() && window.charAt(0) == '"')
+    {
+      while (window.fill())
+      {
+        // read the whole Java string
+      }
+      window.checkError();
+      out.write(formatStatement(window.toString(), clock, null));
+      return;
+    }
+
+    // tokens are built into a chunk, which is written out when it is full
+    if (output == null)
+    {
+      output = new TrimmingAppendable(out);
+    }
+    else
+    {
+      output.reset(out);
+    }
+    streaming = true;
+    text.setLength(0);
+    tokens.reset(window);
+    lexer.reset(window);
+    engine.start();
+
+    try
+    {
+      boolean isSQL = false;
+      while (lexer.next(tokens))
+      {
+        final int token = tokens.size() - 1;
+        if (clock != null)
+        {
+          clock.count(tokens.isLiteral(token));
+        }
+        if (!isSQL && !tokens.isLiteral(token))
+        {
+          // check the first SQL token, before doing any more work
+          if (!isSQL(tokens, token))
+          {
+            break;
+          }
+          isSQL = true;
+        }
+        engine.add(token);
+      }
+      window.checkError();
+      if (clock != null)
+      {
+        clock.setInputLength(window.length());
+      }
+
+      if (isSQL)
+      {
+        if (clock != null)
+        {
+          clock.switchTo(Stage.LAYOUT);
+        }
+        engine.finish(window.length());
+        if (clock != null)
+        {
+          clock.setMaxDepth(engine.getMaxDepth());
+          clock.switchTo(Stage.BUILD);
+        }
+        output.append(text);
+      }
+      else
+      {
+        if (clock != null)
+        {
+          clock.switchTo(Stage.BUILD);
+        }
+        // nothing has been released, so the window still has all of the
+        // text that has been read
+        int copied = 0;
+        do
+        {
+          output.append(window, copied, window.length());
+          copied = window.length();
+          window.release(copied);
+        } while (window.fill());
+        window.checkError();
+      }
+    }
+    catch (final WriteException e)
+    {
+      throw e.getCause();
+    }
+
+  }
+
+}
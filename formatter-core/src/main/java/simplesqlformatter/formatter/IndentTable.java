@@ -0,0 +1,62 @@
+/*
+ * Copyright 2004-2013, Sualeh Fatehi <sualeh@hotmail.com>
+ * This work is licensed under the Creative Commons Attribution-Noncommercial-No Derivative Works 3.0 License.
+ * To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/3.0/
+ * or send a letter to Creative Commons, 543 Howard Street, 5th Floor, San Francisco, California, 94105, USA.
+ */
+package simplesqlformatter.formatter;
+
+
+/**
+ * Table of indent strings for each indent level, built once for an
+ * indent, so that tokens can be indented without building a new string
+ * each time. The table cannot be changed, so it can be shared between
+ * threads.
+ *
+ * @author Sualeh Fatehi
+ */
+final class IndentTable
+{
+
+  /**
+   * Number of levels in the table, which covers 32 nested sub-selects.
+   * Deeper levels are built when they are needed.
+   */
+  private final static int LEVELS = 66;
+
+  private final String indent;
+  private final String[] levels = new String[LEVELS];
+
+  IndentTable(final String indent)
+  {
+    this.indent = indent;
+    for (int level = 0; level < LEVELS; level++)
+    {
+      levels[level] = indent.repeat(level);
+    }
+  }
+
+  /**
+   * Gets the indent for a level.
+   *
+   * @param level
+   *        Indent level
+   * @return Indent string, which is empty for a negative level
+   */
+  String get(final int level)
+  {
+    if (level < 0)
+    {
+      return "";
+    }
+    else if (level < LEVELS)
+    {
+      return levels[level];
+    }
+    else
+    {
+      return indent.repeat(level);
+    }
+  }
+
+}
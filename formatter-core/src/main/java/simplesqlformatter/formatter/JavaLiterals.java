@@ -0,0 +1,366 @@
+/*
+ * Copyright 2004-2013, Sualeh Fatehi <sualeh@hotmail.com>
+ * This work is licensed under the Creative Commons Attribution-Noncommercial-No Derivative Works 3.0 License.
+ * To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/3.0/
+ * or send a letter to Creative Commons, 543 Howard Street, 5th Floor, San Francisco, California, 94105, USA.
+ */
+package simplesqlformatter.formatter;
+
+
+/**
+ * Reads the text of Java string literals, such as SQL that has been
+ * copied from Java source. Escape sequences are unescaped as the text
+ * is copied, in a single pass with one output buffer.
+ *
+ * @author Sualeh Fatehi
+ */
+final class JavaLiterals
+{
+
+  /**
+   * Appends the value of the body of a Java string literal, with escape
+   * sequences unescaped. An escape sequence that is not valid is copied
+   * as it is.
+   *
+   * @param text
+   *        Text that holds the literal
+   * @param start
+   *        Offset after the opening quote
+   * @param end
+   *        Offset of the closing quote
+   * @param buffer
+   *        Buffer to append to
+   */
+  static void unescape(final CharSequence text,
+                       final int start,
+                       final int end,
+                       final StringBuilder buffer)
+  {
+    int i = start;
+    while (i < end)
+    {
+      final char c = text.charAt(i);
+      if (c != '\\' || i + 1 == end)
+      {
+        buffer.append(c);
+        i++;
+        continue;
+      }
+
+      final char escaped = text.charAt(i + 1);
+      i = i + 2;
+      switch (escaped)
+      {
+        case 'b':
+          buffer.append('\b');
+          break;
+        case 't':
+          buffer.append('\t');
+          break;
+        case 'n':
+          buffer.append('\n');
+          break;
+        case 'f':
+          buffer.append('\f');
+          break;
+        case 'r':
+          buffer.append('\r');
+          break;
+        case 's':
+          buffer.append(' ');
+          break;
+        case '"':
+        case '\'':
+        case '\\':
+          buffer.append(escaped);
+          break;
+        case '\r':
+          // a line continuation in a text block
+          if (i < end && text.charAt(i) == '\n')
+          {
+            i++;
+          }
+          break;
+        case '\n':
+          break;
+        case 'u':
+          // any number of u's may follow the backslash
+          int hexStart = i;
+          while (hexStart < end && text.charAt(hexStart) == 'u')
+          {
+            hexStart++;
+          }
+          final int value = hexValue(text, hexStart, end);
+          if (value == -1)
+          {
+            buffer.append('\\').append(escaped);
+          }
+          else
+          {
+            buffer.append((char) value);
+            i = hexStart + 4;
+          }
+          break;
+        default:
+          if (escaped >= '0' && escaped <= '7')
+          {
+            // up to three octal digits, for values up to \377
+            final int maxLength = escaped <= '3'? 3: 2;
+            int octal = escaped - '0';
+            int length = 1;
+            while (length < maxLength && i < end && text.charAt(i) >= '0' &&
+                   text.charAt(i) <= '7')
+            {
+              octal = octal * 8 + text.charAt(i) - '0';
+              length++;
+              i++;
+            }
+            buffer.append((char) octal);
+          }
+          else
+          {
+            buffer.append('\\').append(escaped);
+          }
+      }
+    }
+  }
+
+  /**
+   * Appends text as the body of a Java string literal, with quotes,
+   * backslashes and control characters escaped.
+   *
+   * @param text
+   *        Text to escape
+   * @param buffer
+   *        Buffer to append to
+   */
+  static void escape(final CharSequence text, final StringBuilder buffer)
+  {
+    for (int i = 0; i < text.length(); i++)
+    {
+      final char c = text.charAt(i);
+      switch (c)
+      {
+        case '"':
+          buffer.append("\\\"");
+          break;
+        case '\\':
+          buffer.append("\\\\");
+          break;
+        case '\t':
+          buffer.append("\\t");
+          break;
+        case '\n':
+          buffer.append("\\n");
+          break;
+        case '\r':
+          buffer.append("\\r");
+          break;
+        default:
+          if (c < ' ')
+          {
+            buffer.append(String.format("\\u%04x", (int) c));
+          }
+          else
+          {
+            buffer.append(c);
+          }
+      }
+    }
+  }
+
+  /**
+   * Appends the value of the body of a Java text block. Incidental
+   * indentation and trailing spaces are stripped from each line, lines
+   * are joined with a newline, and escape sequences are unescaped, in
+   * the same way as the Java compiler.
+   *
+   * @param text
+   *        Text that holds the text block
+   * @param start
+   *        Offset of the line after the opening delimiter
+   * @param end
+   *        Offset of the closing delimiter
+   * @param buffer
+   *        Buffer to append to
+   */
+  static void unescapeTextBlock(final CharSequence text,
+                                final int start,
+                                final int end,
+                                final StringBuilder buffer)
+  {
+    // the closing line always counts towards the indent, even if it is
+    // blank, so that the closing delimiter can set the indent
+    int indent = Integer.MAX_VALUE;
+    int lineStart = start;
+    while (lineStart <= end)
+    {
+      final int lineEnd = endOfLine(text, lineStart, end);
+      final int contentStart = skipWhitespace(text, lineStart, lineEnd);
+      if (contentStart < lineEnd || lineEnd == end)
+      {
+        indent = Math.min(indent, contentStart - lineStart);
+      }
+      lineStart = nextLine(text, lineEnd, end);
+    }
+
+    final StringBuilder stripped = new StringBuilder(end - start);
+    lineStart = start;
+    while (lineStart <= end)
+    {
+      final int lineEnd = endOfLine(text, lineStart, end);
+      int contentEnd = lineEnd;
+      while (contentEnd > lineStart &&
+             Character.isWhitespace(text.charAt(contentEnd - 1)))
+      {
+        contentEnd--;
+      }
+      final int contentStart = Math.min(lineStart + indent, contentEnd);
+      stripped.append(text, contentStart, contentEnd);
+      if (lineEnd < end)
+      {
+        stripped.append('\n');
+      }
+      lineStart = nextLine(text, lineEnd, end);
+    }
+    unescape(stripped, 0, stripped.length(), buffer);
+  }
+
+  /**
+   * Unwraps SQL from Java source: one or more string literals, joined
+   * with +, and optionally followed by a semicolon. The literals are
+   * unescaped, and joined with a space, since SQL in Java source is
+   * often split into lines without one. Anything between the literals
+   * that is not a plain concatenation, such as a variable, is copied
+   * with line breaks and tabs turned into spaces.
+   *
+   * @param text
+   *        Text that starts with a double quote, and ends with a double
+   *        quote or a double quote and a semicolon
+   * @return SQL
+   */
+  static String unwrap(final String text)
+  {
+    int end = text.length();
+    if (text.endsWith("\";"))
+    {
+      end--;
+    }
+
+    final StringBuilder buffer = new StringBuilder(end);
+    int i = 1;
+    while (i < end)
+    {
+      // body of a literal, up to the closing quote
+      final int bodyStart = i;
+      while (i < end && text.charAt(i) != '"')
+      {
+        if (text.charAt(i) == '\\')
+        {
+          i++;
+        }
+        i++;
+      }
+      final int bodyEnd = Math.min(i, end);
+      unescape(text, bodyStart, bodyEnd, buffer);
+      i = bodyEnd + 1;
+      if (i >= end)
+      {
+        break;
+      }
+
+      // what joins this literal to the next one
+      final int gapStart = i;
+      boolean concatenation = true;
+      while (i < end && text.charAt(i) != '"')
+      {
+        final char c = text.charAt(i);
+        if (c != '+' && !Character.isWhitespace(c))
+        {
+          concatenation = false;
+        }
+        i++;
+      }
+      if (concatenation)
+      {
+        buffer.append(' ');
+      }
+      else
+      {
+        for (int j = gapStart; j < i; j++)
+        {
+          final char c = text.charAt(j);
+          buffer.append(c == '\r' || c == '\n' || c == '\t'? ' ': c);
+        }
+      }
+      i++;
+    }
+    return buffer.toString();
+  }
+
+  private static int endOfLine(final CharSequence text,
+                               final int start,
+                               final int end)
+  {
+    int i = start;
+    while (i < end && text.charAt(i) != '\n' && text.charAt(i) != '\r')
+    {
+      i++;
+    }
+    return i;
+  }
+
+  private static int nextLine(final CharSequence text,
+                              final int lineEnd,
+                              final int end)
+  {
+    if (lineEnd >= end)
+    {
+      return end + 1;
+    }
+    if (text.charAt(lineEnd) == '\r' && lineEnd + 1 < end &&
+        text.charAt(lineEnd + 1) == '\n')
+    {
+      return lineEnd + 2;
+    }
+    return lineEnd + 1;
+  }
+
+  private static int skipWhitespace(final CharSequence text,
+                                    final int start,
+                                    final int end)
+  {
+    int i = start;
+    while (i < end && Character.isWhitespace(text.charAt(i)))
+    {
+      i++;
+    }
+    return i;
+  }
+
+  private static int hexValue(final CharSequence text,
+                              final int start,
+                              final int end)
+  {
+    if (start + 4 > end)
+    {
+      return -1;
+    }
+    int value = 0;
+    for (int i = start; i < start + 4; i++)
+    {
+      final int digit = Character.digit(text.charAt(i), 16);
+      if (digit == -1)
+      {
+        return -1;
+      }
+      value = value * 16 + digit;
+    }
+    return value;
+  }
+
+  private JavaLiterals()
+  {
+  }
+
+}
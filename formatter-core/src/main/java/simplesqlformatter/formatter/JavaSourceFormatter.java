@@ -0,0 +1,520 @@
+/*
+ * Copyright 2004-2013, Sualeh Fatehi <sualeh@hotmail.com>
+ * This work is licensed under the Creative Commons Attribution-Noncommercial-No Derivative Works 3.0 License.
+ * To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/3.0/
+ * or send a letter to Creative Commons, 543 Howard Street, 5th Floor, San Francisco, California, 94105, USA.
+ */
+package simplesqlformatter.formatter;
+
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Finds and formats SQL statements in Java source. The source is lexed,
+ * so that comments and character literals are skipped, and a statement
+ * is any string literal or text block, or run of them joined with +,
+ * whose value is SQL. This includes constants, and values of
+ * annotations such as <code>@Query</code>. A run that is joined to
+ * anything other than a literal, such as a variable, is left alone,
+ * since only part of the statement is known. A value must be a whole
+ * statement, not just text that starts with a SQL keyword, so that
+ * messages such as "Select a file" are left alone.
+ * <p>
+ * A formatted statement keeps the form of its source. A text block is
+ * replaced with a text block, and anything else with one string literal
+ * for each line, joined with +. The value of the replacement is exactly
+ * the formatted statement. A Java source formatter can be shared
+ * between threads, in the same way as the SQL formatter that it uses.
+ *
+ * @author Sualeh Fatehi
+ */
+public final class JavaSourceFormatter
+{
+
+  private static final String TEXT_BLOCK = "\"\"\"";
+
+  // kinds of Java tokens, as far as statements are concerned
+  private static final int END = 0;
+  private static final int LITERAL = 1;
+  private static final int TEXT_BLOCK_LITERAL = 2;
+  private static final int PLUS = 3;
+  private static final int OTHER = 4;
+
+  private static int skipWhitespaceAndComments(final String source,
+                                               final int start)
+  {
+    final int length = source.length();
+    int i = start;
+    while (i < length)
+    {
+      final char c = source.charAt(i);
+      if (Character.isWhitespace(c))
+      {
+        i++;
+      }
+      else if (source.startsWith("//", i))
+      {
+        while (i < length && source.charAt(i) != '\n' &&
+               source.charAt(i) != '\r')
+        {
+          i++;
+        }
+      }
+      else if (source.startsWith("/*", i))
+      {
+        final int commentEnd = source.indexOf("*/", i + 2);
+        i = commentEnd == -1? length: commentEnd + 2;
+      }
+      else
+      {
+        break;
+      }
+    }
+    return i;
+  }
+
+  /**
+   * Finds the closing quote of a string or character literal, which
+   * cannot span lines.
+   *
+   * @return Offset after the closing quote, or -1 if the literal is not
+   *         closed
+   */
+  private static int endOfLiteral(final String source,
+                                  final int start,
+                                  final char quote)
+  {
+    final int length = source.length();
+    int i = start + 1;
+    while (i < length)
+    {
+      final char c = source.charAt(i);
+      if (c == quote)
+      {
+        return i + 1;
+      }
+      else if (c == '\n' || c == '\r')
+      {
+        return -1;
+      }
+      else if (c == '\\')
+      {
+        i++;
+      }
+      i++;
+    }
+    return -1;
+  }
+
+  /**
+   * Finds the closing delimiter of a text block.
+   *
+   * @return Offset after the closing delimiter, or -1 if the text block
+   *         is not closed
+   */
+  private static int endOfTextBlock(final String source, final int start)
+  {
+    final int length = source.length();
+    int i = start + TEXT_BLOCK.length();
+    while (i < length)
+    {
+      if (source.startsWith(TEXT_BLOCK, i))
+      {
+        return i + TEXT_BLOCK.length();
+      }
+      else if (source.charAt(i) == '\\')
+      {
+        i++;
+      }
+      i++;
+    }
+    return -1;
+  }
+
+  /**
+   * Finds the start of the content of a text block, which is the line
+   * after the opening delimiter.
+   */
+  private static int startOfTextBlock(final String source, final int start)
+  {
+    int i = start + TEXT_BLOCK.length();
+    while (source.charAt(i) != '\n' && source.charAt(i) != '\r')
+    {
+      i++;
+    }
+    if (source.startsWith("\r\n", i))
+    {
+      i++;
+    }
+    return i + 1;
+  }
+
+  private static int startOfLine(final String source, final int offset)
+  {
+    int i = offset;
+    while (i > 0 && source.charAt(i - 1) != '\n' &&
+           source.charAt(i - 1) != '\r')
+    {
+      i--;
+    }
+    return i;
+  }
+
+  private static String indentOf(final String source, final int lineStart)
+  {
+    int i = lineStart;
+    while (i < source.length() &&
+           (source.charAt(i) == ' ' || source.charAt(i) == '\t'))
+    {
+      i++;
+    }
+    return source.substring(lineStart, i);
+  }
+
+  private final SQLFormatter formatter;
+
+  /**
+   * Creates a Java source formatter.
+   *
+   * @param formatter
+   *        Formats the statements that are found
+   */
+  public JavaSourceFormatter(final SQLFormatter formatter)
+  {
+    if (formatter == null)
+    {
+      throw new IllegalArgumentException("No SQL formatter provided");
+    }
+    this.formatter = formatter;
+  }
+
+  /**
+   * Finds the SQL statements in Java source, and formats each one.
+   *
+   * @param source
+   *        Java source
+   * @return Statements, in the order in which they appear
+   */
+  public List<EmbeddedSQL> find(final String source)
+  {
+    final List<EmbeddedSQL> statements = new ArrayList<EmbeddedSQL>();
+    final String lineSeparator = source.contains("\r\n")? "\r\n": "\n";
+    final StringBuilder value = new StringBuilder();
+
+    // the run of literals joined with +, if there is one
+    int runStart = -1;
+    int runEnd = -1;
+    int runLiterals = 0;
+    boolean runIsTextBlock = false;
+    boolean runIsOperand = false;
+
+    int line = 1;
+    int lineCountedTo = 0;
+
+    int previous = OTHER;
+    int i = 0;
+    while (true)
+    {
+      i = skipWhitespaceAndComments(source, i);
+
+      int kind;
+      int tokenEnd;
+      if (i == source.length())
+      {
+        kind = END;
+        tokenEnd = i;
+      }
+      else if (source.startsWith(TEXT_BLOCK, i))
+      {
+        tokenEnd = endOfTextBlock(source, i);
+        kind = TEXT_BLOCK_LITERAL;
+        if (tokenEnd == -1)
+        {
+          kind = OTHER;
+          tokenEnd = source.length();
+        }
+      }
+      else if (source.charAt(i) == '"' || source.charAt(i) == '\'')
+      {
+        tokenEnd = endOfLiteral(source, i, source.charAt(i));
+        kind = source.charAt(i) == '"'? LITERAL: OTHER;
+        if (tokenEnd == -1)
+        {
+          kind = OTHER;
+          tokenEnd = i + 1;
+        }
+      }
+      else if (source.charAt(i) == '+')
+      {
+        // += joins a literal to a variable, in the same way as +
+        kind = PLUS;
+        tokenEnd = i + 1;
+        if (source.startsWith("+=", i))
+        {
+          tokenEnd = i + 2;
+        }
+        else if (source.startsWith("++", i))
+        {
+          kind = OTHER;
+          tokenEnd = i + 2;
+        }
+      }
+      else
+      {
+        kind = OTHER;
+        tokenEnd = i + 1;
+      }
+
+      if (kind == LITERAL || kind == TEXT_BLOCK_LITERAL)
+      {
+        if (runStart == -1 || previous != PLUS)
+        {
+          runStart = i;
+          runLiterals = 0;
+          runIsOperand = previous == PLUS;
+          value.setLength(0);
+        }
+        if (kind == LITERAL)
+        {
+          JavaLiterals.unescape(source, i + 1, tokenEnd - 1, value);
+        }
+        else
+        {
+          JavaLiterals.unescapeTextBlock(source,
+                                         startOfTextBlock(source, i),
+                                         tokenEnd - TEXT_BLOCK.length(),
+                                         value);
+        }
+        runEnd = tokenEnd;
+        runLiterals++;
+        runIsTextBlock = kind == TEXT_BLOCK_LITERAL;
+      }
+      else if (runStart != -1 && !(kind == PLUS && previous != PLUS))
+      {
+        // the run has ended; if it ended with +, it is joined to
+        // something that is not a literal
+        if (previous != PLUS && !runIsOperand)
+        {
+          for (; lineCountedTo < runStart; lineCountedTo++)
+          {
+            final char c = source.charAt(lineCountedTo);
+            final boolean crlf = source.startsWith("\r\n", lineCountedTo);
+            if (c == '\n' || c == '\r' && !crlf)
+            {
+              line++;
+            }
+          }
+          final EmbeddedSQL statement = statement(source,
+                                                  runStart,
+                                                  runEnd,
+                                                  line,
+                                                  value.toString(),
+                                                  runIsTextBlock &&
+                                                      runLiterals == 1,
+                                                  lineSeparator);
+          if (statement != null)
+          {
+            statements.add(statement);
+          }
+        }
+        runStart = -1;
+      }
+
+      if (kind == END)
+      {
+        break;
+      }
+      previous = kind;
+      i = tokenEnd;
+    }
+    return statements;
+  }
+
+  /**
+   * Formats the SQL statements in Java source.
+   *
+   * @param source
+   *        Java source
+   * @return Java source with formatted statements
+   */
+  public String format(final String source)
+  {
+    final StringBuilder buffer = new StringBuilder(source.length());
+    int copied = 0;
+    for (final EmbeddedSQL statement: find(source))
+    {
+      buffer.append(source, copied, statement.getStart());
+      buffer.append(statement.getReplacement());
+      copied = statement.getEnd();
+    }
+    buffer.append(source, copied, source.length());
+    return buffer.toString();
+  }
+
+  /**
+   * Writes a statement as string literals, one for each line, joined
+   * with + on lines lined up under the first literal.
+   */
+  private String concatenation(final String source,
+                               final int start,
+                               final String sql,
+                               final String lineSeparator)
+  {
+    final int lineStart = startOfLine(source, start);
+    final String indent = indentOf(source, lineStart);
+    final StringBuilder continuation = new StringBuilder(lineSeparator)
+      .append(indent);
+    for (int i = lineStart + indent.length(); i < start; i++)
+    {
+      continuation.append(' ');
+    }
+    continuation.append("+ \"");
+
+    final StringBuilder buffer = new StringBuilder(sql.length() * 2);
+    buffer.append('"');
+    final String sqlLineSeparator = formatter.getOptions().getLineSeparator();
+    int lineBegin = 0;
+    while (true)
+    {
+      final int lineEnd = sql.indexOf(sqlLineSeparator, lineBegin);
+      if (lineEnd == -1)
+      {
+        JavaLiterals.escape(sql.substring(lineBegin), buffer);
+        break;
+      }
+      final int nextLine = lineEnd + sqlLineSeparator.length();
+      JavaLiterals.escape(sql.substring(lineBegin, nextLine), buffer);
+      buffer.append('"').append(continuation);
+      lineBegin = nextLine;
+    }
+    buffer.append('"');
+    return buffer.toString();
+  }
+
+  /**
+   * Formats a statement found in the source, if its value is SQL.
+   *
+   * @return Statement, or null if the value is not SQL
+   */
+  private EmbeddedSQL statement(final String source,
+                                final int start,
+                                final int end,
+                                final int line,
+                                final String sql,
+                                final boolean isTextBlock,
+                                final String lineSeparator)
+  {
+    if (!formatter.isStatement(sql))
+    {
+      return null;
+    }
+
+    final String formattedSql = formatter.format(sql);
+    String replacement = null;
+    if (isTextBlock)
+    {
+      replacement = textBlock(source, start, end, formattedSql, lineSeparator);
+    }
+    if (replacement == null)
+    {
+      replacement = concatenation(source, start, formattedSql, lineSeparator);
+    }
+    return new EmbeddedSQL(start,
+                           end,
+                           line,
+                           source.substring(start, end),
+                           sql,
+                           replacement);
+  }
+
+  /**
+   * Writes a statement as a text block, with the indent of the original
+   * text block. If the closing delimiter was on a line of its own, it
+   * stays there, and the value ends with a newline, as it did before.
+   *
+   * @return Text block, or null if the statement cannot be written as
+   *         one, since it has line breaks that are not newlines
+   */
+  private String textBlock(final String source,
+                           final int start,
+                           final int end,
+                           final String sql,
+                           final String lineSeparator)
+  {
+    if (sql.indexOf('\r') != -1)
+    {
+      return null;
+    }
+
+    final int closing = end - TEXT_BLOCK.length();
+    final int closingLineStart = startOfLine(source, closing);
+    final boolean closingOnOwnLine = source
+      .substring(closingLineStart, closing).trim().isEmpty();
+    final String indent;
+    if (closingOnOwnLine)
+    {
+      indent = indentOf(source, closingLineStart);
+    }
+    else
+    {
+      indent = indentOf(source, startOfTextBlock(source, start));
+    }
+
+    final StringBuilder buffer = new StringBuilder(sql.length() * 2);
+    buffer.append(TEXT_BLOCK).append(lineSeparator);
+    final String[] lines = sql.split("\n", -1);
+    for (int i = 0; i < lines.length; i++)
+    {
+      final String line = lines[i];
+      final boolean last = i == lines.length - 1;
+      if (line.length() > 0)
+      {
+        buffer.append(indent);
+      }
+      int quotes = 0;
+      for (int j = 0; j < line.length(); j++)
+      {
+        final char c = line.charAt(j);
+        final boolean lastChar = j == line.length() - 1;
+        if (c == '\\')
+        {
+          buffer.append("\\\\");
+        }
+        else if (c == '"' &&
+                 (++quotes == TEXT_BLOCK.length() || last &&
+                                                     !closingOnOwnLine &&
+                                                     lastChar))
+        {
+          // do not close the text block early
+          buffer.append("\\\"");
+          quotes = 0;
+        }
+        else if (lastChar && (c == ' ' || c == '\t'))
+        {
+          // trailing spaces are stripped, unless they are escaped
+          buffer.append(c == ' '? "\\s": "\\t");
+        }
+        else
+        {
+          buffer.append(c);
+        }
+        if (c != '"')
+        {
+          quotes = 0;
+        }
+      }
+      if (!last || closingOnOwnLine)
+      {
+        buffer.append(lineSeparator);
+      }
+    }
+    if (closingOnOwnLine)
+    {
+      buffer.append(indent);
+    }
+    buffer.append(TEXT_BLOCK);
+    return buffer.toString();
+  }
+
+}
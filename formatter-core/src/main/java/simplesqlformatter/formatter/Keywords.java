@@ -0,0 +1,223 @@
+/*
+ * Copyright 2004-2013, Sualeh Fatehi <sualeh@hotmail.com>
+ * This work is licensed under the Creative Commons Attribution-Noncommercial-No Derivative Works 3.0 License. 
+ * To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/3.0/ 
+ * or send a letter to Creative Commons, 543 Howard Street, 5th Floor, San Francisco, California, 94105, USA.
+ */
+package simplesqlformatter.formatter;
+
+
+/**
+ * Table of SQL keywords, and the roles that they play in formatting.
+ * Keywords are compiled into a trie over the ASCII letters, so a token
+ * can be classified in a single case-insensitive pass over its text,
+ * without creating any objects.
+ * 
+ * @author Sualeh Fatehi
+ */
+final class Keywords
+{
+
+  final static int KEYWORD = 1;
+  final static int SIGNIFICANT = 1 << 1;
+  final static int MINOR = 1 << 2;
+  final static int CONDITIONAL = 1 << 3;
+  final static int FUNCTION = 1 << 4;
+  final static int SELECT = 1 << 5;
+  final static int INSERT = 1 << 6;
+  final static int UPDATE = 1 << 7;
+  final static int DELETE = 1 << 8;
+
+  // Roles of the SQL delimiters, which are not keywords
+  final static int OPEN_PARENTHESIS = 1 << 9;
+  final static int CLOSE_PARENTHESIS = 1 << 10;
+  final static int SEPARATOR = 1 << 11;
+
+  // Keywords that statements need after their first keyword
+  final static int FROM = 1 << 12;
+  final static int INTO = 1 << 13;
+  final static int SET = 1 << 14;
+
+  /**
+   * State of the trie before any characters have been matched.
+   */
+  final static int START = 0;
+  /**
+   * State for text that cannot be part of any keyword.
+   */
+  final static int NONE = -1;
+
+  // Letters A-Z, and a single space between the words of multi-word
+  // keywords
+  private final static int ALPHABET = 27;
+  private final static int SPACE = 26;
+
+  private static int[] transitions = new int[ALPHABET * 256];
+  private static int[] roles = new int[256];
+  private static int stateCount = 1;
+
+  static
+  {
+    // The empty token marks the statement boundaries, and acts as a
+    // significant keyword
+    add("", SIGNIFICANT);
+
+    add("SELECT", SIGNIFICANT | SELECT);
+    add("SELECT DISTINCT", SIGNIFICANT | SELECT);
+    add("INSERT", SIGNIFICANT | INSERT);
+    add("INSERT INTO", SIGNIFICANT | INSERT | INTO);
+    add("UPDATE", SIGNIFICANT | UPDATE);
+    add("DELETE", SIGNIFICANT | DELETE);
+    add("FROM", SIGNIFICANT | FROM);
+    add("SET", SIGNIFICANT | SET);
+    add("INTO", SIGNIFICANT | INTO);
+    for (final String keyword: new String[] {
+        "WHERE",
+        "ORDER BY",
+        "GROUP BY",
+        "HAVING",
+        "VALUES",
+        "UNION",
+        "UNION ALL",
+        "ALL",
+        "MINUS",
+    })
+    {
+      add(keyword, SIGNIFICANT);
+    }
+
+    for (final String keyword: new String[] {
+        "AS",
+        "INNER JOIN",
+        "OUTER JOIN",
+        "LEFT JOIN",
+        "LEFT OUTER JOIN",
+        "RIGHT JOIN",
+        "RIGHT OUTER JOIN",
+        "FULL JOIN",
+        "FULL OUTER JOIN",
+        "CROSS JOIN",
+        "JOIN",
+        "ON",
+    })
+    {
+      add(keyword, MINOR);
+    }
+
+    for (final String keyword: new String[] {
+        "AND", "OR", "XOR", "NOT", "BETWEEN",
+    })
+    {
+      add(keyword, CONDITIONAL);
+    }
+
+    for (final String keyword: new String[] {
+        "COUNT", "SUM", "AVG", "MIN", "MAX", "COALESCE",
+    })
+    {
+      add(keyword, FUNCTION);
+    }
+
+    for (final String keyword: new String[] {
+        "ANY", "LIKE", "IN", "EXISTS", "IS", "NULL",
+    })
+    {
+      add(keyword, 0);
+    }
+  }
+
+  /**
+   * Gets the roles of a keyword that ends at the given state.
+   * 
+   * @param state
+   *        State of the trie
+   * @return Roles of the keyword, or 0 if no keyword ends at the state
+   */
+  static int getRoles(final int state)
+  {
+    if (state == NONE)
+    {
+      return 0;
+    }
+    return roles[state];
+  }
+
+  /**
+   * Moves from one state of the trie to the next.
+   * 
+   * @param state
+   *        Current state
+   * @param c
+   *        Next character; a space separates the words of a keyword
+   * @return Next state, or NONE if no keyword continues this way
+   */
+  static int next(final int state, final char c)
+  {
+    if (state == NONE)
+    {
+      return NONE;
+    }
+    final int symbol = symbol(c);
+    if (symbol == NONE)
+    {
+      return NONE;
+    }
+    final int nextState = transitions[state * ALPHABET + symbol];
+    if (nextState == START)
+    {
+      return NONE;
+    }
+    return nextState;
+  }
+
+  private static void add(final String keyword, final int keywordRoles)
+  {
+    int state = START;
+    for (int i = 0; i < keyword.length(); i++)
+    {
+      final int index = state * ALPHABET + symbol(keyword.charAt(i));
+      if (transitions[index] == START)
+      {
+        if (stateCount == roles.length)
+        {
+          final int[] newTransitions = new int[transitions.length * 2];
+          System.arraycopy(transitions, 0, newTransitions, 0,
+                           transitions.length);
+          transitions = newTransitions;
+          final int[] newRoles = new int[roles.length * 2];
+          System.arraycopy(roles, 0, newRoles, 0, roles.length);
+          roles = newRoles;
+        }
+        transitions[index] = stateCount;
+        stateCount++;
+      }
+      state = transitions[index];
+    }
+    roles[state] = keywordRoles | KEYWORD;
+  }
+
+  private static int symbol(final char c)
+  {
+    if (c >= 'A' && c <= 'Z')
+    {
+      return c - 'A';
+    }
+    else if (c >= 'a' && c <= 'z')
+    {
+      return c - 'a';
+    }
+    else if (c == ' ')
+    {
+      return SPACE;
+    }
+    else
+    {
+      return NONE;
+    }
+  }
+
+  private Keywords()
+  {
+  }
+
+}
@@ -0,0 +1,302 @@
+/*
+ * Copyright 2004-2013, Sualeh Fatehi <sualeh@hotmail.com>
+ * This work is licensed under the Creative Commons Attribution-Noncommercial-No Derivative Works 3.0 License. 
+ * To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/3.0/ 
+ * or send a letter to Creative Commons, 543 Howard Street, 5th Floor, San Francisco, California, 94105, USA.
+ */
+package simplesqlformatter.formatter;
+
+
+import java.util.Arrays;
+
+/**
+ * Lays out tokens in a single forward pass. Decides what follows each
+ * token, the indent level of each token, and whether a token continues
+ * the previous line. Tokens are handed on as soon as their layout is
+ * final, so only the previous SQL token and the literals after it are
+ * held back at any time. Tokens are laid out in place, in a
+ * {@link TokenBuffer}, and released once they have been handed on.
+ * 
+ * @author Sualeh Fatehi
+ */
+final class LayoutEngine
+{
+
+  /**
+   * Receives tokens once their layout is final.
+   */
+  interface TokenHandler
+  {
+
+    /**
+     * Handles a token that has been laid out.
+     * 
+     * @param tokens
+     *        Token buffer
+     * @param index
+     *        Number of the token in the buffer, with its layout
+     */
+    void handle(TokenBuffer tokens, int index);
+
+  }
+
+  /**
+   * Roles of the empty tokens that mark the start and the end of the
+   * statement.
+   */
+  private final static int BOUNDARY = Keywords.getRoles(Keywords.START);
+
+  private final TokenBuffer tokens;
+  private final TokenHandler handler;
+
+  /**
+   * Previous SQL token, whose layout still depends on the next SQL
+   * token. Any tokens between it and the current token are literals.
+   */
+  private int previous;
+  /**
+   * SQL token that is waiting to see the token after it, or -1.
+   */
+  private int current = -1;
+  /**
+   * Whether the previous SQL token is an open parenthesis directly
+   * before a sub-select.
+   */
+  private boolean previousOpensSelect;
+
+  private int indentLevel;
+  /**
+   * Stack of the number of open parentheses at each indent level,
+   * which grows with the nesting of sub-selects.
+   */
+  private int[] indents = new int[8];
+
+  private int depth;
+  private int maxDepth;
+
+  /**
+   * Creates a layout engine, which can lay out one statement after
+   * another. Each statement is started with {@link #start()}.
+   * 
+   * @param tokens
+   *        Buffer that the tokens of each statement are added to
+   * @param handler
+   *        Receives tokens once their layout is final
+   */
+  LayoutEngine(final TokenBuffer tokens, final TokenHandler handler)
+  {
+    this.tokens = tokens;
+    this.handler = handler;
+  }
+
+  /**
+   * Gets the deepest nesting of parentheses seen so far, including
+   * sub-selects.
+   * 
+   * @return Deepest nesting
+   */
+  int getMaxDepth()
+  {
+    return maxDepth;
+  }
+
+  /**
+   * Starts laying out a statement, adding an empty token that marks the
+   * start of the statement. The token buffer must have been reset.
+   */
+  void start()
+  {
+    current = -1;
+    previousOpensSelect = false;
+    indentLevel = 0;
+    indents[0] = 0;
+    depth = 0;
+    maxDepth = 0;
+
+    // the start of the statement acts as a significant keyword
+    previous = tokens.addSQL(BOUNDARY, 0, 0);
+    tokens.setAfter(previous, TokenBuffer.NEWLINE);
+  }
+
+  /**
+   * Adds the next token of the statement.
+   * 
+   * @param token
+   *        Number of the next token in the buffer
+   */
+  void add(final int token)
+  {
+    if (current != -1)
+    {
+      layout(current, token);
+      current = -1;
+    }
+    if (!tokens.isLiteral(token))
+    {
+      current = token;
+    }
+  }
+
+  /**
+   * Finishes laying out the statement, adding an empty token that marks
+   * the end of the statement, and hands on all remaining tokens.
+   * 
+   * @param endOffset
+   *        Offset of the end of the statement
+   */
+  void finish(final int endOffset)
+  {
+    final int end = tokens.addSQL(BOUNDARY, endOffset, endOffset);
+    if (current != -1)
+    {
+      layout(current, end);
+      current = -1;
+    }
+
+    // last SQL token always ends with a space
+    tokens.setAfter(previous, TokenBuffer.SPACE);
+    if (end - previous == 1)
+    {
+      tokens.setAfter(end, TokenBuffer.NOTHING);
+    }
+    else
+    {
+      tokens.setAfter(end, TokenBuffer.NEWLINE);
+    }
+
+    handOn(end);
+    handler.handle(tokens, end);
+  }
+
+  /**
+   * Hands on the previous SQL token and the literals after it.
+   * 
+   * @param upTo
+   *        Number of the first token to hold back
+   */
+  private void handOn(final int upTo)
+  {
+    for (int i = previous; i < upTo; i++)
+    {
+      handler.handle(tokens, i);
+    }
+    tokens.release(upTo);
+  }
+
+  /**
+   * Lays out a SQL token, which completes the layout of the SQL token
+   * before it.
+   * 
+   * @param token
+   *        SQL token to lay out
+   * @param nextToken
+   *        Token that immediately follows
+   */
+  private void layout(final int token, final int nextToken)
+  {
+
+    // decide what follows each token
+    tokens.setAfter(token, TokenBuffer.SPACE);
+    if (tokens.is(token, Keywords.SIGNIFICANT))
+    {
+      // significant keywords appear on a line by themselves
+      tokens.setAfter(previous, TokenBuffer.NEWLINE);
+      tokens.setAfter(token, TokenBuffer.NEWLINE);
+    }
+    else if (tokens.is(token, Keywords.SEPARATOR))
+    {
+      // , is NOT preceded by a space, and followed by a new line
+      tokens.setAfter(previous, TokenBuffer.NOTHING);
+      tokens.setAfter(token, TokenBuffer.NEWLINE);
+    }
+    else if (tokens.is(token, Keywords.OPEN_PARENTHESIS))
+    {
+      // text follows an open parenthesis on the same line
+      tokens.setAfter(token, TokenBuffer.NOTHING);
+      // if you have a function or keyword, then the open parenthesis
+      // should have no leading space
+      if (tokens.is(previous, Keywords.FUNCTION) ||
+          !tokens.is(previous, Keywords.KEYWORD))
+      {
+        tokens.setAfter(previous, TokenBuffer.NOTHING);
+      }
+    }
+    else if (tokens.is(token, Keywords.CLOSE_PARENTHESIS))
+    {
+      tokens.setAfter(previous, TokenBuffer.NOTHING);
+    }
+    else if (tokens.is(token, Keywords.CONDITIONAL))
+    {
+      tokens.setAfter(token, TokenBuffer.NEWLINE);
+    }
+    if (previousOpensSelect)
+    {
+      // the sub-select follows directly after the open parenthesis
+      tokens.setAfter(previous, TokenBuffer.NOTHING);
+    }
+
+    // decide indents
+    if (tokens.is(token, Keywords.CLOSE_PARENTHESIS))
+    {
+      depth--;
+      if (indents[indentLevel] == 0)
+      {
+        indentLevel--;
+        tokens.setAfter(previous, TokenBuffer.NEWLINE);
+      }
+      else
+      {
+        indents[indentLevel]--;
+      }
+    }
+    if (tokens.is(token, Keywords.SIGNIFICANT))
+    {
+      tokens.setIndentLevel(token, indentLevel * 2);
+    }
+    else
+    {
+      tokens.setIndentLevel(token, indentLevel * 2 + 1);
+    }
+    if (tokens.is(token, Keywords.MINOR))
+    {
+      tokens.setAfter(previous, TokenBuffer.NEWLINE);
+    }
+    previousOpensSelect = false;
+    if (tokens.is(token, Keywords.OPEN_PARENTHESIS))
+    {
+      depth++;
+      if (depth > maxDepth)
+      {
+        maxDepth = depth;
+      }
+      if (tokens.is(nextToken, Keywords.SELECT))
+      {
+        tokens.setAfter(previous, TokenBuffer.NEWLINE);
+        indentLevel++;
+        if (indentLevel == indents.length)
+        {
+          indents = Arrays.copyOf(indents, indents.length * 2);
+        }
+        indents[indentLevel] = 0;
+        previousOpensSelect = true;
+      }
+      else
+      {
+        indents[indentLevel]++;
+      }
+    }
+
+    // the layout of the previous token is now final, so decide whether
+    // this token continues the same line; the token before is either
+    // the previous SQL token or the last literal after it
+    if (tokens.getAfter(token - 1) != TokenBuffer.NEWLINE)
+    {
+      tokens.setIndentLevel(token, Token.INDENT_CONTINUATION);
+    }
+
+    handOn(token);
+    previous = token;
+
+  }
+
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2004-2013, Sualeh Fatehi <sualeh@hotmail.com>
+ * This work is licensed under the Creative Commons Attribution-Noncommercial-No Derivative Works 3.0 License. 
+ * To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/3.0/ 
+ * or send a letter to Creative Commons, 543 Howard Street, 5th Floor, San Francisco, California, 94105, USA.
+ */
+package simplesqlformatter.formatter;
+
+
+/**
+ * Set of delimiters for literal expressions in SQL.
+ * 
+ * @author Sualeh Fatehi
+ */
+final class LiteralDelimiter
+{
+
+  final static LiteralDelimiter DOUBLEQUOTEDSTRING = new LiteralDelimiter("\"",
+                                                                          "\"");
+  final static LiteralDelimiter SINGLEQUOTEDSTRING = new LiteralDelimiter("'",
+                                                                          "'");
+  final static LiteralDelimiter CSTYLECOMMENT = new LiteralDelimiter("/*", "*/");
+  final static LiteralDelimiter SQLCOMMENT = new LiteralDelimiter("--", "\n");
+
+  final static LiteralDelimiter[] ALLDELIMITERS = {
+      DOUBLEQUOTEDSTRING, SINGLEQUOTEDSTRING, SQLCOMMENT, CSTYLECOMMENT,
+  };
+
+  /**
+   * Lookup table of the characters that can start a literal, so that
+   * most characters can be rejected without trying every delimiter.
+   */
+  private final static boolean[] STARTCHARACTERS = new boolean[128];
+
+  /**
+   * Length of the longest start delimiter, which is how far ahead a
+   * scanner needs to see to recognize the start of a literal.
+   */
+  final static int MAX_START_LENGTH;
+
+  static
+  {
+    int maxStartLength = 0;
+    for (final LiteralDelimiter delimiter: ALLDELIMITERS)
+    {
+      STARTCHARACTERS[delimiter.getStart().charAt(0)] = true;
+      maxStartLength = Math.max(maxStartLength, delimiter.getStart()
+        .length());
+    }
+    MAX_START_LENGTH = maxStartLength;
+  }
+
+  /**
+   * Finds the delimiter of the literal that starts at the given
+   * position in the text, if any.
+   * 
+   * @param text
+   *        Text to check
+   * @param index
+   *        Position in the text
+   * @return Delimiter of the literal starting at the position, or null
+   */
+  static LiteralDelimiter startingAt(final CharSequence text, final int index)
+  {
+    final char c = text.charAt(index);
+    if (c >= STARTCHARACTERS.length || !STARTCHARACTERS[c])
+    {
+      return null;
+    }
+    for (final LiteralDelimiter delimiter: ALLDELIMITERS)
+    {
+      if (regionMatches(text, index, delimiter.getStart()))
+      {
+        return delimiter;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Checks whether the text contains the given string at a position.
+   * 
+   * @param text
+   *        Text to check
+   * @param index
+   *        Position in the text
+   * @param match
+   *        String to match
+   * @return Whether the string occurs at the position
+   */
+  static boolean regionMatches(final CharSequence text,
+                               final int index,
+                               final String match)
+  {
+    if (index + match.length() > text.length())
+    {
+      return false;
+    }
+    for (int i = 0; i < match.length(); i++)
+    {
+      if (text.charAt(index + i) != match.charAt(i))
+      {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private final String start;
+  private final String end;
+
+  private LiteralDelimiter(final String start, final String end)
+  {
+    this.start = start;
+    this.end = end;
+  }
+
+  String getEnd()
+  {
+    return end;
+  }
+
+  String getStart()
+  {
+    return start;
+  }
+
+}
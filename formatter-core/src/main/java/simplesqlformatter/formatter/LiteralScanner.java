@@ -0,0 +1,343 @@
+/*
+ * Copyright 2004-2013, Sualeh Fatehi <sualeh@hotmail.com>
+ * This work is licensed under the Creative Commons Attribution-Noncommercial-No Derivative Works 3.0 License. 
+ * To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/3.0/ 
+ * or send a letter to Creative Commons, 543 Howard Street, 5th Floor, San Francisco, California, 94105, USA.
+ */
+package simplesqlformatter.formatter;
+
+
+/**
+ * Splits text into alternating spans of literals (quoted strings and
+ * comments) and plain SQL, in a single forward pass. The text is never
+ * copied; each span is reported as a range of offsets into the
+ * original text. When the text is read from a {@link TextWindow}, more
+ * text is read only as far as the current span needs, and a plain span
+ * can be extended later, so a span never has to hold the rest of the
+ * text.
+ * 
+ * @author Sualeh Fatehi
+ */
+final class LiteralScanner
+{
+
+  /**
+   * Longest plain span that is scanned at a time. Longer plain SQL is
+   * reported as a span that is extended, so that finding the first
+   * tokens of a long text does not scan the rest of it.
+   */
+  private final static int MAX_PLAIN_SPAN = 256;
+
+  private CharSequence text;
+  private TextWindow window;
+
+  private int position;
+  private int spanStart;
+  private int spanEnd;
+  private LiteralDelimiter delimiter;
+
+  /**
+   * Positions from which a delimiter end, a newline, or a carriage
+   * return is known not to occur again. A failed search is never
+   * repeated, which keeps the scan linear even when literals are not
+   * terminated.
+   */
+  private final int[] missingEndFrom = new int[LiteralDelimiter.ALLDELIMITERS.length];
+  private int missingNewlineFrom;
+  private int missingReturnFrom;
+
+  LiteralScanner(final CharSequence text)
+  {
+    reset(text);
+  }
+
+  /**
+   * Gets the delimiter of the current span.
+   * 
+   * @return Literal delimiter, or null if the span is plain SQL
+   */
+  LiteralDelimiter getDelimiter()
+  {
+    return delimiter;
+  }
+
+  /**
+   * Gets the end offset (exclusive) of the current span.
+   * 
+   * @return End offset
+   */
+  int getEnd()
+  {
+    return spanEnd;
+  }
+
+  /**
+   * Gets the start offset of the current span.
+   * 
+   * @return Start offset
+   */
+  int getStart()
+  {
+    return spanStart;
+  }
+
+  /**
+   * Whether the current span is a literal.
+   * 
+   * @return Whether the current span is a literal
+   */
+  boolean isLiteral()
+  {
+    return delimiter != null;
+  }
+
+  /**
+   * Starts scanning another text, from the beginning.
+   * 
+   * @param text
+   *        Text to scan
+   */
+  void reset(final CharSequence text)
+  {
+    this.text = text;
+    if (text instanceof TextWindow)
+    {
+      window = (TextWindow) text;
+    }
+    else
+    {
+      window = null;
+    }
+
+    position = 0;
+    spanStart = 0;
+    spanEnd = 0;
+    delimiter = null;
+    for (int i = 0; i < missingEndFrom.length; i++)
+    {
+      missingEndFrom[i] = Integer.MAX_VALUE;
+    }
+    missingNewlineFrom = Integer.MAX_VALUE;
+    missingReturnFrom = Integer.MAX_VALUE;
+  }
+
+  /**
+   * Extends the current span of plain SQL with more text, if the text
+   * that follows it is also plain SQL. A plain span stops at the end of
+   * the text that has been read, or after the longest plain span, so it
+   * may need to be extended.
+   * 
+   * @return False if the current span cannot be extended
+   */
+  boolean extend()
+  {
+    if (delimiter != null || !isAvailable(position) ||
+        startsLiteral(position))
+    {
+      return false;
+    }
+
+    spanEnd = endOfPlainSpan(position);
+    position = spanEnd;
+    return true;
+  }
+
+  /**
+   * Advances to the next span.
+   * 
+   * @return False if there is no more text
+   */
+  boolean next()
+  {
+    if (!isAvailable(position))
+    {
+      return false;
+    }
+
+    spanStart = position;
+    if (startsLiteral(position))
+    {
+      delimiter = LiteralDelimiter.startingAt(text, position);
+      spanEnd = findLiteralEnd(delimiter, position);
+    }
+    else
+    {
+      delimiter = null;
+      spanEnd = endOfPlainSpan(position);
+    }
+    position = spanEnd;
+
+    return true;
+  }
+
+  private int endOfPlainSpan(final int start)
+  {
+    final int limit = Math.min(text.length(), start + MAX_PLAIN_SPAN);
+    int end = start + 1;
+    while (end < limit && !startsLiteral(end))
+    {
+      end++;
+    }
+    return end;
+  }
+
+  /**
+   * Checks whether the text extends to an offset, reading more text if
+   * needed.
+   */
+  private boolean isAvailable(final int index)
+  {
+    if (index < text.length())
+    {
+      return true;
+    }
+    return window != null && window.fillTo(index);
+  }
+
+  private boolean startsLiteral(final int index)
+  {
+    // make sure that the whole start delimiter can be seen
+    isAvailable(index + LiteralDelimiter.MAX_START_LENGTH - 1);
+    return LiteralDelimiter.startingAt(text, index) != null;
+  }
+
+  /**
+   * Finds the end of a literal. In a quoted string, a doubled quote
+   * stands for the quote itself, and does not end the string. A SQL
+   * comment ends at the first line break, whether a newline or a
+   * carriage return. A literal that is not terminated runs to the end of
+   * the line, or to the end of the text.
+   */
+  private int findLiteralEnd(final LiteralDelimiter delimiter,
+                             final int literalStart)
+  {
+    final int afterStart = literalStart + delimiter.getStart().length();
+    final boolean quoted = delimiter == LiteralDelimiter.SINGLEQUOTEDSTRING ||
+                           delimiter == LiteralDelimiter.DOUBLEQUOTEDSTRING;
+
+    int slot = 0;
+    while (LiteralDelimiter.ALLDELIMITERS[slot] != delimiter)
+    {
+      slot++;
+    }
+
+    int afterEnd = -1;
+    int from = afterStart;
+    while (from < missingEndFrom[slot])
+    {
+      afterEnd = indexOf(delimiter.getEnd(), from);
+      if (afterEnd == -1)
+      {
+        missingEndFrom[slot] = from;
+        break;
+      }
+      final int next = afterEnd + 1;
+      if (!quoted || !isAvailable(next) ||
+          text.charAt(next) != delimiter.getEnd().charAt(0))
+      {
+        break;
+      }
+      // skip the doubled quote
+      from = next + 1;
+      afterEnd = -1;
+    }
+    if (afterEnd != -1)
+    {
+      if (delimiter == LiteralDelimiter.SQLCOMMENT)
+      {
+        final int lineEnd = findReturn(afterStart, afterEnd);
+        if (lineEnd != -1)
+        {
+          return lineEnd + 1;
+        }
+      }
+      return afterEnd + delimiter.getEnd().length();
+    }
+
+    if (afterStart < missingNewlineFrom)
+    {
+      afterEnd = indexOf("\n", afterStart);
+      if (afterEnd == -1)
+      {
+        missingNewlineFrom = afterStart;
+      }
+    }
+    if (afterEnd != -1)
+    {
+      final int lineEnd = findReturn(afterStart, afterEnd);
+      if (lineEnd != -1)
+      {
+        afterEnd = lineEnd;
+      }
+    }
+    if (afterEnd == -1 && afterStart < missingReturnFrom)
+    {
+      afterEnd = indexOf("\r", afterStart);
+      if (afterEnd == -1)
+      {
+        missingReturnFrom = afterStart;
+      }
+    }
+    if (afterEnd == -1)
+    {
+      // every search has read to the end of the text
+      afterEnd = text.length() - 1;
+    }
+    return afterEnd + 1;
+  }
+
+  /**
+   * Finds a carriage return in text that has already been read, such as
+   * before a newline; a carriage return on its own also ends a line.
+   */
+  private int findReturn(final int from, final int to)
+  {
+    for (int i = from; i < to; i++)
+    {
+      if (text.charAt(i) == '\r')
+      {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private int indexOf(final String match, final int from)
+  {
+    final char first = match.charAt(0);
+    for (int i = from; isAvailable(i); i++)
+    {
+      if (text.charAt(i) == first &&
+          isAvailable(i + match.length() - 1) &&
+          LiteralDelimiter.regionMatches(text, i, match))
+      {
+        if (window != null && match.charAt(match.length() - 1) <= ' ' &&
+            !isFollowedByText(i + match.length()))
+        {
+          return -1;
+        }
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Checks whether anything but whitespace follows an offset. Text from
+   * a window is scanned as if it had been trimmed, just like a string
+   * that is formatted, so a line end in the trailing whitespace does not
+   * end a literal.
+   */
+  private boolean isFollowedByText(final int index)
+  {
+    for (int i = index; isAvailable(i); i++)
+    {
+      if (text.charAt(i) > ' ')
+      {
+        return true;
+      }
+    }
+    return false;
+  }
+
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2004-2013, Sualeh Fatehi <sualeh@hotmail.com>
+ * This work is licensed under the Creative Commons Attribution-Noncommercial-No Derivative Works 3.0 License. 
+ * To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/3.0/ 
+ * or send a letter to Creative Commons, 543 Howard Street, 5th Floor, San Francisco, California, 94105, USA.
+ */
+package simplesqlformatter.formatter;
+
+
+/**
+ * Represents a literal token - that is, a quoted string or a comment.
+ * 
+ * @author Sualeh Fatehi
+ */
+final class LiteralToken
+  extends Token
+{
+
+  private final LiteralDelimiter delimiter;
+
+  LiteralToken(final CharSequence source,
+               final int start,
+               final int end,
+               final LiteralDelimiter delimiter)
+  {
+    super(source, start, end);
+    this.delimiter = delimiter;
+    if (delimiter == LiteralDelimiter.CSTYLECOMMENT ||
+        delimiter == LiteralDelimiter.SQLCOMMENT)
+    {
+      afterToken = AfterToken.NEWLINE;
+    }
+    else if (delimiter == LiteralDelimiter.DOUBLEQUOTEDSTRING ||
+             delimiter == LiteralDelimiter.SINGLEQUOTEDSTRING)
+    {
+      afterToken = AfterToken.SPACE;
+    }
+  }
+
+  /**
+   * Appends the value of a literal. SQL comments are converted to
+   * C-style comments; the line break that ended them follows the token.
+   * A SQL comment that holds a C-style comment delimiter stays a SQL
+   * comment, since it would otherwise end or nest the C-style comment.
+   * 
+   * @param buffer
+   *        Buffer to append to
+   * @param source
+   *        Text that the literal was read from
+   * @param start
+   *        Start offset of the literal
+   * @param end
+   *        End offset of the literal
+   * @param delimiter
+   *        Literal delimiter
+   */
+  static void appendTo(final StringBuilder buffer,
+                       final CharSequence source,
+                       final int start,
+                       final int end,
+                       final LiteralDelimiter delimiter)
+  {
+    if (delimiter == LiteralDelimiter.SQLCOMMENT)
+    {
+      // Drop the trailing line break
+      final int textStart = start + delimiter.getStart().length();
+      int textEnd = end;
+      while (textEnd > textStart && source.charAt(textEnd - 1) <= ' ')
+      {
+        textEnd--;
+      }
+      if (isCStyleCommentText(source, textStart, textEnd))
+      {
+        buffer.append(LiteralDelimiter.CSTYLECOMMENT.getStart())
+          .append(source, textStart, textEnd)
+          .append(LiteralDelimiter.CSTYLECOMMENT.getEnd());
+      }
+      else
+      {
+        buffer.append(source, start, textEnd);
+      }
+    }
+    else
+    {
+      buffer.append(source, start, end);
+    }
+  }
+
+  /**
+   * Checks whether text can go between the delimiters of a C-style
+   * comment, without making another delimiter with them or by itself.
+   */
+  private static boolean isCStyleCommentText(final CharSequence source,
+                                             final int start,
+                                             final int end)
+  {
+    // the text follows the * of the start delimiter
+    char previous = '*';
+    for (int i = start; i < end; i++)
+    {
+      final char c = source.charAt(i);
+      if (previous == '*' && c == '/' || previous == '/' && c == '*')
+      {
+        return false;
+      }
+      previous = c;
+    }
+    // and is followed by the * of the end delimiter
+    return previous != '/';
+  }
+
+  @Override
+  void appendTo(final StringBuilder buffer)
+  {
+    appendTo(buffer, getSource(), getStart(), getEnd(), delimiter);
+  }
+
+}
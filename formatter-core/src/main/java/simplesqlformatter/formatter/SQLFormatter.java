@@ -0,0 +1,646 @@
+/*
+ * Copyright 2004-2013, Sualeh Fatehi <sualeh@hotmail.com>
+ * This work is licensed under the Creative Commons Attribution-Noncommercial-No Derivative Works 3.0 License. 
+ * To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/3.0/ 
+ * or send a letter to Creative Commons, 543 Howard Street, 5th Floor, San Francisco, California, 94105, USA.
+ */
+package simplesqlformatter.formatter;
+
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+import simplesqlformatter.formatter.FormatterOptions.KeywordCase;
+
+/**
+ * Formats SQL following a series of well-defined steps.
+ * <p>
+ * A formatter is safe to share between threads. Its settings are held
+ * in immutable {@link FormatterOptions}, and each thread formats in its
+ * own {@link FormatterSession}, which all formatters share.
+ * 
+ * @author Sualeh Fatehi.
+ */
+public final class SQLFormatter
+{
+
+  /**
+   * Lexes and lays out a SQL statement, in a single pass.
+   * 
+   * @param sql
+   *        SQL statement
+   * @param handler
+   *        Receives the tokens, with an empty token at each end
+   */
+  private static void layout(final String sql,
+                             final LayoutEngine.TokenHandler handler)
+  {
+    final TokenBuffer tokens = new TokenBuffer();
+    tokens.reset(sql);
+    final SQLLexer lexer = new SQLLexer(sql);
+    final LayoutEngine engine = new LayoutEngine(tokens, handler);
+    engine.start();
+    while (lexer.next(tokens))
+    {
+      engine.add(tokens.size() - 1);
+    }
+    engine.finish(sql.length());
+  }
+
+  /**
+   * Session of each thread, shared by all formatters, which pass their
+   * settings with each statement. The session does not refer to any
+   * formatter, so a thread does not keep the formatters that it has
+   * used alive.
+   */
+  private static final ThreadLocal<FormatterSession> SESSIONS = new ThreadLocal<FormatterSession>()
+  {
+    @Override
+    protected FormatterSession initialValue()
+    {
+      return new FormatterSession(null);
+    }
+  };
+
+  private volatile FormatterOptions options;
+  private volatile FormatListener formatListener;
+
+  /**
+   * Creates a formatter with the default options.
+   */
+  public SQLFormatter()
+  {
+    this(FormatterOptions.DEFAULT);
+  }
+
+  /**
+   * Creates a formatter with the given options.
+   * 
+   * @param options
+   *        Formatter options
+   */
+  public SQLFormatter(final FormatterOptions options)
+  {
+    if (options == null)
+    {
+      throw new IllegalArgumentException("No formatter options provided");
+    }
+    this.options = options;
+  }
+
+  /**
+   * Formats a SQL statement.
+   * 
+   * @param sql
+   *        SQL statement to format
+   * @return Formatted SQL statement
+   */
+  public String format(final String sql)
+  {
+    return freeSession().format(sql, options, formatListener);
+  }
+
+  /**
+   * Formats a SQL statement, and keeps the tokens and statistics of the
+   * statement, from a single parse. This costs more than
+   * {@link #format(String)}, but less than formatting and parsing the
+   * statement separately.
+   * 
+   * @param sql
+   *        SQL statement to format
+   * @return Formatted text, tokens and statistics
+   */
+  public FormatResult formatResult(final String sql)
+  {
+    return freeSession().formatResult(sql, options, formatListener);
+  }
+
+  /**
+   * Formats a SQL statement read from a reader, and writes the formatted
+   * statement to a writer. The statement is formatted as it is read, and
+   * text is released as soon as it has been written, so the memory used
+   * depends on the length of the longest token and the depth of nesting,
+   * rather than on the length of the input. The output is the same as
+   * that of {@link #format(String)}. Input that starts with a double
+   * quote may be a Java string, which can only be recognized at its end,
+   * so it is read fully before it is formatted. A literal that is not
+   * terminated is also read to the end of the input.
+   * 
+   * @param in
+   *        Reader for the SQL statement to format
+   * @param out
+   *        Writer for the formatted SQL statement
+   * @throws IOException
+   *         On an exception reading or writing
+   */
+  public void format(final Reader in, final Writer out)
+    throws IOException
+  {
+    freeSession().format(in, out, options, formatListener);
+  }
+
+  /**
+   * Formats a SQL script of many statements, read from a reader, and
+   * writes the formatted statements to a writer. Each statement is
+   * formatted and flushed as soon as it has been read, and is followed by
+   * its separator. Statements are separated by a blank line.
+   * 
+   * @param in
+   *        Reader for the SQL script to format
+   * @param out
+   *        Writer for the formatted SQL script
+   * @throws IOException
+   *         On an exception reading or writing
+   * @see StatementSplitter
+   */
+  public void formatScript(final Reader in, final Writer out)
+    throws IOException
+  {
+    formatScript(in, out, 1);
+  }
+
+  /**
+   * Formats a SQL script of many statements, with statements formatted
+   * in parallel on a fork-join pool. The output is the same as that of
+   * {@link #formatScript(Reader, Writer)}, in the same order. Only a few
+   * statements for each thread are read ahead of the writer, so memory
+   * stays bounded by the size of the statements in flight.
+   * 
+   * @param in
+   *        Reader for the SQL script to format
+   * @param out
+   *        Writer for the formatted SQL script
+   * @param parallelism
+   *        Number of threads to format with; statements are formatted on
+   *        the calling thread if this is 1 or less
+   * @throws IOException
+   *         On an exception reading or writing
+   */
+  public void formatScript(final Reader in,
+                           final Writer out,
+                           final int parallelism)
+    throws IOException
+  {
+    final StatementSplitter statements = new StatementSplitter(in);
+    ForkJoinPool pool = null;
+    if (parallelism > 1)
+    {
+      pool = new ForkJoinPool(parallelism);
+    }
+    final Deque<ForkJoinTask<String>> pending = new ArrayDeque<ForkJoinTask<String>>();
+    final int maxPending = Math.max(1, parallelism) * 4;
+
+    try
+    {
+      boolean first = true;
+      while (statements.hasNext())
+      {
+        final String statement = statements.next();
+        final String separator = statements.getSeparator();
+        if (pool == null)
+        {
+          writeStatement(out, formatStatement(statement, separator), first);
+          first = false;
+          continue;
+        }
+
+        pending.add(pool.submit(new RecursiveTask<String>()
+        {
+          private static final long serialVersionUID = 4460217389713541205L;
+
+          @Override
+          protected String compute()
+          {
+            return formatStatement(statement, separator);
+          }
+        }));
+        if (pending.size() == maxPending)
+        {
+          writeStatement(out, pending.remove().join(), first);
+          first = false;
+        }
+      }
+      while (!pending.isEmpty())
+      {
+        writeStatement(out, pending.remove().join(), first);
+        first = false;
+      }
+    }
+    catch (final UncheckedIOException e)
+    {
+      throw e.getCause();
+    }
+    finally
+    {
+      if (pool != null)
+      {
+        pool.shutdownNow();
+      }
+    }
+  }
+
+  /**
+   * Cleans a statement before it is formatted, turning a Java string
+   * into the SQL that it holds.
+   */
+  static String cleanString(final String sql)
+  {
+    if (sql.startsWith("\"") && (sql.endsWith("\"") || sql.endsWith("\";")))
+    {
+      return JavaLiterals.unwrap(sql);
+    }
+    return sql.trim();
+  }
+
+
+  /**
+   * Gets the listener that receives statistics for each formatted
+   * statement.
+   * 
+   * @return Format listener, or null if there is none
+   */
+  public FormatListener getFormatListener()
+  {
+    return formatListener;
+  }
+
+  /**
+   * Gets the current indent size. A negative number indicates a tab
+   * indent.
+   * 
+   * @return Indent size
+   */
+  public int getIndent()
+  {
+    final FormatterOptions options = this.options;
+    if (options.isTabIndent())
+    {
+      return -1;
+    }
+    else
+    {
+      return options.getIndent().length();
+    }
+  }
+
+  /**
+   * Gets the options that statements are formatted with.
+   * 
+   * @return Formatter options
+   */
+  public FormatterOptions getOptions()
+  {
+    return options;
+  }
+
+  /**
+   * Gets a session for the current thread, which must not be passed to
+   * another thread.
+   * 
+   * @return New formatter session
+   * @deprecated The formatter already reuses the working buffers of the
+   *             current thread; keep a session from
+   *             {@link #newSession()} instead
+   */
+  @Deprecated
+  public FormatterSession getSession()
+  {
+    return newSession();
+  }
+
+  /**
+   * Checks that formatted SQL holds the same tokens as the SQL that it
+   * was formatted from, so that formatting has not changed what the SQL
+   * means. Whitespace, the case of keywords and whether a comment is a
+   * SQL comment or a C-style comment may differ. Tools that write
+   * formatted SQL back over the original can use this to check the
+   * formatted SQL before it is written.
+   * 
+   * @param sql
+   *        SQL that was formatted
+   * @param formattedSql
+   *        Formatted SQL
+   * @return True if the formatted SQL has the same tokens
+   */
+  public boolean isEquivalent(final String sql, final String formattedSql)
+  {
+    if (sql == null || formattedSql == null)
+    {
+      throw new IllegalArgumentException("No SQL provided");
+    }
+
+    final TokenBuffer tokens = new TokenBuffer();
+    tokens.reset(sql);
+    final SQLLexer lexer = new SQLLexer(sql);
+    final TokenBuffer formattedTokens = new TokenBuffer();
+    formattedTokens.reset(formattedSql);
+    final SQLLexer formattedLexer = new SQLLexer(formattedSql);
+    while (true)
+    {
+      final boolean more = lexer.next(tokens);
+      if (more != formattedLexer.next(formattedTokens))
+      {
+        return false;
+      }
+      if (!more)
+      {
+        return true;
+      }
+      final int index = tokens.size() - 1;
+      final int formattedIndex = formattedTokens.size() - 1;
+      if (!isSameToken(sql, tokens, index, formattedSql, formattedTokens,
+                       formattedIndex))
+      {
+        return false;
+      }
+      tokens.release(index);
+      formattedTokens.release(formattedIndex);
+    }
+  }
+
+  /**
+   * Checks if the provided string is a SQL statement by checking the
+   * first SQL token. Leading whitespace, comments and string literals
+   * are skipped, and the check stops at the first SQL token, so the
+   * cost depends on the length of the text before it, not on the length
+   * of the whole string.
+   * 
+   * @param sql
+   *        Checks if the string is sql
+   * @return True if the statement is a SQL statement
+   */
+  public boolean isSQL(final String sql)
+  {
+    return freeSession().isSQL(sql);
+  }
+
+  /**
+   * Checks if text is a whole SQL statement, rather than text that only
+   * starts with a SQL keyword, such as "Select a file". The statement
+   * must go on past the keyword that it needs after its first keyword:
+   * SELECT needs a later FROM, INSERT needs INTO, UPDATE needs a later
+   * SET and DELETE needs FROM.
+   * 
+   * @param sql
+   *        Text to check
+   * @return True if the text is a SQL statement
+   */
+  boolean isStatement(final String sql)
+  {
+    return freeSession().isStatement(sql);
+  }
+
+  /**
+   * Creates a new formatter session, with its own working buffers. The
+   * session can be used by one thread at a time.
+   * 
+   * @return New formatter session
+   */
+  public FormatterSession newSession()
+  {
+    return new FormatterSession(this);
+  }
+
+  /**
+   * Parses a SQL statement into an array of tokens. The tokens array
+   * can be used ot build the formatted SQL statement.
+   * 
+   * @param sql
+   *        SQL statement to parse
+   * @return Parsed SQL as an array of tokens
+   */
+  public Token[] parse(final String sql)
+  {
+
+    if (sql == null || sql.length() == 0)
+    {
+      return new Token[0];
+    }
+
+    final KeywordCase keywordCase = options.getKeywordCase();
+    final List<Token> tokens = new ArrayList<Token>();
+    layout(sql, new LayoutEngine.TokenHandler()
+    {
+      public void handle(final TokenBuffer buffer, final int index)
+      {
+        tokens.add(buffer.toToken(index, keywordCase));
+      }
+    });
+
+    return tokens.toArray(new Token[tokens.size()]);
+
+  }
+
+  /**
+   * Sets a listener that receives statistics for each formatted
+   * statement. Stages are only measured while there is a listener, or
+   * while the flight recorder is recording formatter events, so
+   * formatting costs nothing more otherwise.
+   * 
+   * @param formatListener
+   *        Format listener, or null to stop measuring
+   */
+  public void setFormatListener(final FormatListener formatListener)
+  {
+    this.formatListener = formatListener;
+  }
+
+  /**
+   * Sets an indent, in number of spaces. Any negative value indeciates
+   * indentation by tab characters. The options of the formatter are
+   * replaced, so statements that are being formatted on other threads
+   * keep the indent that they started with.
+   * 
+   * @param i
+   *        Indent size
+   * @deprecated Create the formatter with {@link FormatterOptions}
+   *             instead
+   */
+  @Deprecated
+  public void setIndent(final int i)
+  {
+    options = options.toBuilder().indent(i).build();
+  }
+
+  /**
+   * Gets the session of the current thread, or a new session if that
+   * one is busy, such as when a format listener formats a statement.
+   */
+  private FormatterSession freeSession()
+  {
+    final FormatterSession session = SESSIONS.get();
+    if (session.isActive())
+    {
+      return new FormatterSession(null);
+    }
+    return session;
+  }
+
+  private String formatStatement(final String statement,
+                                 final String separator)
+  {
+    final String formattedStatement = format(statement);
+    if (separator.length() > 1 || separator.equals("/") ||
+        endsWithLineComment(formattedStatement))
+    {
+      // batch separators go on a line by themselves, and no separator
+      // goes inside a SQL comment
+      return formattedStatement + options.getLineSeparator() + separator;
+    }
+    return formattedStatement + separator;
+  }
+
+  /**
+   * Checks whether formatted SQL ends with a SQL comment, which was not
+   * converted to a C-style comment.
+   */
+  private static boolean endsWithLineComment(final String formattedSql)
+  {
+    final int lineStart = formattedSql.lastIndexOf('\n') + 1;
+    if (formattedSql.indexOf(LiteralDelimiter.SQLCOMMENT.getStart(),
+                             lineStart) == -1)
+    {
+      return false;
+    }
+
+    final TokenBuffer tokens = new TokenBuffer();
+    tokens.reset(formattedSql);
+    final SQLLexer lexer = new SQLLexer(formattedSql);
+    while (lexer.next(tokens))
+    {
+      tokens.release(tokens.size() - 1);
+    }
+    final int last = tokens.size() - 1;
+    return last >= 0 &&
+           tokens.getDelimiter(last) == LiteralDelimiter.SQLCOMMENT;
+  }
+
+  /**
+   * Compares a token with a formatted token. SQL tokens are compared
+   * without whitespace, and keywords without case, and comments by the
+   * text between their delimiters.
+   */
+  private static boolean isSameToken(final String sql,
+                                     final TokenBuffer tokens,
+                                     final int index,
+                                     final String formattedSql,
+                                     final TokenBuffer formattedTokens,
+                                     final int formattedIndex)
+  {
+    final LiteralDelimiter delimiter = tokens.getDelimiter(index);
+    final LiteralDelimiter formattedDelimiter = formattedTokens
+      .getDelimiter(formattedIndex);
+    int start = tokens.getStart(index);
+    int end = tokens.getEnd(index);
+    int formattedStart = formattedTokens.getStart(formattedIndex);
+    int formattedEnd = formattedTokens.getEnd(formattedIndex);
+
+    if (delimiter == null && formattedDelimiter == null)
+    {
+      final boolean ignoreCase = tokens.is(index, Keywords.KEYWORD) &&
+                                 formattedTokens.is(formattedIndex,
+                                                    Keywords.KEYWORD);
+      while (true)
+      {
+        while (start < end && SQLLexer.isWhitespace(sql.charAt(start)))
+        {
+          start++;
+        }
+        while (formattedStart < formattedEnd &&
+               SQLLexer.isWhitespace(formattedSql.charAt(formattedStart)))
+        {
+          formattedStart++;
+        }
+        if (start == end || formattedStart == formattedEnd)
+        {
+          return start == end && formattedStart == formattedEnd;
+        }
+        final char c = sql.charAt(start++);
+        final char formattedC = formattedSql.charAt(formattedStart++);
+        if (c != formattedC &&
+            !(ignoreCase && Character.toUpperCase(c) == Character
+              .toUpperCase(formattedC)))
+        {
+          return false;
+        }
+      }
+    }
+
+    if (delimiter != formattedDelimiter &&
+        !(isComment(delimiter) && isComment(formattedDelimiter)))
+    {
+      return false;
+    }
+    start = start + delimiter.getStart().length();
+    end = literalTextEnd(sql, start, end, delimiter);
+    formattedStart = formattedStart + formattedDelimiter.getStart().length();
+    formattedEnd = literalTextEnd(formattedSql, formattedStart, formattedEnd,
+                                  formattedDelimiter);
+    return end - start == formattedEnd - formattedStart &&
+           sql.regionMatches(start, formattedSql, formattedStart, end - start);
+  }
+
+  private static boolean isComment(final LiteralDelimiter delimiter)
+  {
+    return delimiter == LiteralDelimiter.SQLCOMMENT ||
+           delimiter == LiteralDelimiter.CSTYLECOMMENT;
+  }
+
+  /**
+   * Finds the end of the text of a literal that is compared. The text of
+   * a comment does not include its end delimiter or trailing whitespace.
+   * A literal that is not terminated runs to the end of its statement,
+   * which is trimmed when it is formatted, so its trailing whitespace is
+   * not compared either.
+   */
+  private static int literalTextEnd(final String sql,
+                                    final int textStart,
+                                    final int end,
+                                    final LiteralDelimiter delimiter)
+  {
+    final String endDelimiter = delimiter.getEnd();
+    final boolean terminated = end - textStart >= endDelimiter.length() &&
+                               sql.startsWith(endDelimiter,
+                                              end - endDelimiter.length());
+    if (terminated && !isComment(delimiter))
+    {
+      return end;
+    }
+
+    int textEnd = end;
+    if (terminated)
+    {
+      textEnd -= endDelimiter.length();
+    }
+    while (textEnd > textStart && sql.charAt(textEnd - 1) <= ' ')
+    {
+      textEnd--;
+    }
+    return textEnd;
+  }
+
+  private void writeStatement(final Writer out,
+                              final String formattedStatement,
+                              final boolean first)
+    throws IOException
+  {
+    if (!first)
+    {
+      final String lineSeparator = options.getLineSeparator();
+      out.write(lineSeparator);
+      out.write(lineSeparator);
+    }
+    out.write(formattedStatement);
+    out.flush();
+  }
+
+}
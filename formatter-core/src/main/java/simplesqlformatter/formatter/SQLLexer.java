@@ -0,0 +1,210 @@
+/*
+ * Copyright 2004-2013, Sualeh Fatehi <sualeh@hotmail.com>
+ * This work is licensed under the Creative Commons Attribution-Noncommercial-No Derivative Works 3.0 License. 
+ * To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/3.0/ 
+ * or send a letter to Creative Commons, 543 Howard Street, 5th Floor, San Francisco, California, 94105, USA.
+ */
+package simplesqlformatter.formatter;
+
+
+/**
+ * Splits SQL text into tokens, in a single forward pass. Literals
+ * (string literals and comments) are found first, and the text between
+ * them is split on whitespace and SQL delimiters. Keywords of more than
+ * one word, such as GROUP BY or LEFT OUTER JOIN, are recognized by
+ * looking ahead a bounded number of words, and are returned as a single
+ * token. The lexer never looks further ahead than the current token, so
+ * it can read text from a {@link TextWindow} as it goes.
+ * 
+ * @author Sualeh Fatehi
+ */
+final class SQLLexer
+{
+
+  /**
+   * Largest number of words in a keyword.
+   */
+  private final static int MAX_KEYWORD_WORDS = 3;
+
+  /**
+   * Checks whether a character separates SQL tokens. These are the
+   * same characters that a {@link java.util.StringTokenizer} treats as
+   * whitespace.
+   * 
+   * @param c
+   *        Character to check
+   * @return Whether the character is whitespace
+   */
+  static boolean isWhitespace(final char c)
+  {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f';
+  }
+
+  private static boolean isDelimiter(final char c)
+  {
+    return c == '(' || c == ')' || c == ',';
+  }
+
+  private CharSequence text;
+  private final LiteralScanner scanner;
+
+  private int position;
+  private int spanEnd;
+
+  SQLLexer(final CharSequence text)
+  {
+    this.text = text;
+    scanner = new LiteralScanner(text);
+  }
+
+  /**
+   * Starts splitting another text, from the beginning.
+   * 
+   * @param text
+   *        Text to split
+   */
+  void reset(final CharSequence text)
+  {
+    this.text = text;
+    scanner.reset(text);
+    position = 0;
+    spanEnd = 0;
+  }
+
+  /**
+   * Reads the next token, and adds it to a token buffer.
+   * 
+   * @param tokens
+   *        Buffer to add the token to
+   * @return False at the end of the text
+   */
+  boolean next(final TokenBuffer tokens)
+  {
+    while (true)
+    {
+      while (isInSpan(position) && isWhitespace(text.charAt(position)))
+      {
+        position++;
+      }
+      if (isInSpan(position))
+      {
+        nextSQLToken(tokens);
+        return true;
+      }
+
+      if (!scanner.next())
+      {
+        return false;
+      }
+      if (scanner.isLiteral())
+      {
+        tokens.addLiteral(scanner.getDelimiter(),
+                          scanner.getStart(),
+                          scanner.getEnd());
+        return true;
+      }
+      position = scanner.getStart();
+      spanEnd = scanner.getEnd();
+    }
+  }
+
+  private int advance(final int state, final int start, final int end)
+  {
+    int nextState = state;
+    for (int i = start; i < end && nextState != Keywords.NONE; i++)
+    {
+      nextState = Keywords.next(nextState, text.charAt(i));
+    }
+    return nextState;
+  }
+
+  private int endOfWord(final int start)
+  {
+    int end = start;
+    while (isInSpan(end) && !isWhitespace(text.charAt(end)) &&
+           !isDelimiter(text.charAt(end)))
+    {
+      end++;
+    }
+    return end;
+  }
+
+  /**
+   * Checks whether an offset is in the current span of plain SQL,
+   * extending the span if the plain SQL continues past its end.
+   */
+  private boolean isInSpan(final int index)
+  {
+    while (index >= spanEnd)
+    {
+      if (!scanner.extend())
+      {
+        return false;
+      }
+      spanEnd = scanner.getEnd();
+    }
+    return true;
+  }
+
+  private void nextSQLToken(final TokenBuffer tokens)
+  {
+    final int start = position;
+    final char c = text.charAt(start);
+    if (isDelimiter(c))
+    {
+      position++;
+      final int delimiterRoles;
+      if (c == '(')
+      {
+        delimiterRoles = Keywords.OPEN_PARENTHESIS;
+      }
+      else if (c == ')')
+      {
+        delimiterRoles = Keywords.CLOSE_PARENTHESIS;
+      }
+      else
+      {
+        delimiterRoles = Keywords.SEPARATOR;
+      }
+      tokens.addSQL(delimiterRoles, start, position);
+      return;
+    }
+
+    int end = endOfWord(start);
+    int state = advance(Keywords.START, start, end);
+    int tokenEnd = end;
+    int tokenRoles = Keywords.getRoles(state);
+
+    // Follow the keyword table into the next words, and keep the
+    // longest keyword found
+    for (int words = 1; words < MAX_KEYWORD_WORDS; words++)
+    {
+      state = Keywords.next(state, ' ');
+      if (state == Keywords.NONE)
+      {
+        break;
+      }
+      int wordStart = end;
+      while (isInSpan(wordStart) && isWhitespace(text.charAt(wordStart)))
+      {
+        wordStart++;
+      }
+      if (wordStart == end || !isInSpan(wordStart) ||
+          isDelimiter(text.charAt(wordStart)))
+      {
+        break;
+      }
+      end = endOfWord(wordStart);
+      state = advance(state, wordStart, end);
+      if (Keywords.getRoles(state) != 0)
+      {
+        tokenEnd = end;
+        tokenRoles = Keywords.getRoles(state);
+      }
+    }
+
+    position = tokenEnd;
+    tokens.addSQL(tokenRoles, start, tokenEnd);
+  }
+
+}
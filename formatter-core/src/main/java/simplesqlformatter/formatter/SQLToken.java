@@ -0,0 +1,123 @@
+/*
+ * Copyright 2004-2013, Sualeh Fatehi <sualeh@hotmail.com>
+ * This work is licensed under the Creative Commons Attribution-Noncommercial-No Derivative Works 3.0 License. 
+ * To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/3.0/ 
+ * or send a letter to Creative Commons, 543 Howard Street, 5th Floor, San Francisco, California, 94105, USA.
+ */
+package simplesqlformatter.formatter;
+
+
+import simplesqlformatter.formatter.FormatterOptions.KeywordCase;
+
+/**
+ * Represents a SQL token.
+ * 
+ * @author Sualeh Fatehi
+ */
+final class SQLToken
+  extends Token
+{
+
+  private final int roles;
+  private final KeywordCase keywordCase;
+
+  SQLToken(final CharSequence source,
+           final int start,
+           final int end,
+           final int roles,
+           final KeywordCase keywordCase)
+  {
+    super(source, start, end);
+
+    this.roles = roles;
+    this.keywordCase = keywordCase;
+
+  }
+
+  boolean isKeyword()
+  {
+    return is(Keywords.KEYWORD);
+  }
+
+  /**
+   * Appends the value of a SQL token, converted to a case. The words in
+   * multi-word keywords are separated by a single space.
+   * 
+   * @param buffer
+   *        Buffer to append to
+   * @param source
+   *        Text that the token was read from
+   * @param start
+   *        Start offset of the token
+   * @param end
+   *        End offset of the token
+   * @param textCase
+   *        Case to convert the token to
+   */
+  static void appendTo(final StringBuilder buffer,
+                       final CharSequence source,
+                       final int start,
+                       final int end,
+                       final KeywordCase textCase)
+  {
+    boolean inWhitespace = false;
+    for (int i = start; i < end; i++)
+    {
+      final char c = source.charAt(i);
+      if (SQLLexer.isWhitespace(c))
+      {
+        inWhitespace = true;
+        continue;
+      }
+      if (inWhitespace)
+      {
+        buffer.append(' ');
+        inWhitespace = false;
+      }
+      if (textCase == KeywordCase.UPPER)
+      {
+        buffer.append(Character.toUpperCase(c));
+      }
+      else if (textCase == KeywordCase.LOWER)
+      {
+        buffer.append(Character.toLowerCase(c));
+      }
+      else
+      {
+        buffer.append(c);
+      }
+    }
+  }
+
+  /**
+   * Appends the token value. Keywords are converted to the keyword case
+   * of the formatter options, and the words in multi-word keywords are
+   * separated by a single space.
+   * 
+   * @param buffer
+   *        Buffer to append to
+   */
+  @Override
+  void appendTo(final StringBuilder buffer)
+  {
+    appendTo(buffer,
+             getSource(),
+             getStart(),
+             getEnd(),
+             isKeyword()? keywordCase: KeywordCase.PRESERVE);
+  }
+
+  /**
+   * Checks whether the token plays a role, as classified by the keyword
+   * table.
+   * 
+   * @param role
+   *        Role to check
+   * @return Whether the token plays the role
+   */
+  private boolean is(final int role)
+  {
+    return (roles & role) != 0;
+  }
+
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2004-2013, Sualeh Fatehi <sualeh@hotmail.com>
+ * This work is licensed under the Creative Commons Attribution-Noncommercial-No Derivative Works 3.0 License.
+ * To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/3.0/
+ * or send a letter to Creative Commons, 543 Howard Street, 5th Floor, San Francisco, California, 94105, USA.
+ */
+package simplesqlformatter.formatter;
+
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import simplesqlformatter.formatter.FormatStats.Stage;
+
+/**
+ * Measures the time and allocations of each stage of formatting, on
+ * one thread. The clock is always running in one stage, and whatever
+ * happens between two switches is charged to the stage that was
+ * running. The clock is only switched at the boundaries of the stages,
+ * a few times for each statement, and never for each token, since
+ * reading the allocated bytes of the thread costs more than lexing a
+ * token.
+ *
+ * @author Sualeh Fatehi
+ */
+final class StageClock
+{
+
+  private final static com.sun.management.ThreadMXBean THREADS;
+
+  static
+  {
+    final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    if (threads instanceof com.sun.management.ThreadMXBean &&
+        ((com.sun.management.ThreadMXBean) threads)
+          .isThreadAllocatedMemorySupported() &&
+        ((com.sun.management.ThreadMXBean) threads)
+          .isThreadAllocatedMemoryEnabled())
+    {
+      THREADS = (com.sun.management.ThreadMXBean) threads;
+    }
+    else
+    {
+      THREADS = null;
+    }
+  }
+
+  private final long threadId = Thread.currentThread().getId();
+  private final long[] times = new long[Stage.values().length];
+  private final long[] allocatedBytes = new long[Stage.values().length];
+
+  private Stage stage;
+  private long lastTime;
+  private long lastAllocatedBytes;
+
+  private int inputLength;
+  private int tokenCount;
+  private int literalCount;
+  private int maxDepth;
+
+  /**
+   * Starts the clock, in the first stage.
+   */
+  StageClock()
+  {
+    stage = Stage.CLEAN;
+    lastTime = System.nanoTime();
+    lastAllocatedBytes = allocatedBytes();
+  }
+
+  /**
+   * Counts a token.
+   *
+   * @param literal
+   *        Whether the token that was lexed is a literal
+   */
+  void count(final boolean literal)
+  {
+    tokenCount++;
+    if (literal)
+    {
+      literalCount++;
+    }
+  }
+
+  /**
+   * Sets the length of the input.
+   *
+   * @param inputLength
+   *        Length of the input, in characters
+   */
+  void setInputLength(final int inputLength)
+  {
+    this.inputLength = inputLength;
+  }
+
+  /**
+   * Sets the deepest nesting of the statement.
+   *
+   * @param maxDepth
+   *        Deepest nesting
+   */
+  void setMaxDepth(final int maxDepth)
+  {
+    this.maxDepth = maxDepth;
+  }
+
+  /**
+   * Stops the clock, and reports the statistics.
+   *
+   * @return Statistics
+   */
+  FormatStats stop()
+  {
+    switchTo(stage);
+    if (THREADS == null)
+    {
+      for (int i = 0; i < allocatedBytes.length; i++)
+      {
+        allocatedBytes[i] = -1;
+      }
+    }
+    return new FormatStats(times,
+                           allocatedBytes,
+                           inputLength,
+                           tokenCount,
+                           literalCount,
+                           maxDepth);
+  }
+
+  /**
+   * Charges the time since the last switch to the running stage, and
+   * starts the next stage.
+   *
+   * @param nextStage
+   *        Stage to run next
+   */
+  void switchTo(final Stage nextStage)
+  {
+    final long time = System.nanoTime();
+    final long bytes = allocatedBytes();
+    times[stage.ordinal()] += time - lastTime;
+    allocatedBytes[stage.ordinal()] += bytes - lastAllocatedBytes;
+    stage = nextStage;
+    lastTime = time;
+    lastAllocatedBytes = bytes;
+  }
+
+  private long allocatedBytes()
+  {
+    if (THREADS == null)
+    {
+      return 0;
+    }
+    return THREADS.getThreadAllocatedBytes(threadId);
+  }
+
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright 2004-2013, Sualeh Fatehi <sualeh@hotmail.com>
+ * This work is licensed under the Creative Commons Attribution-Noncommercial-No Derivative Works 3.0 License.
+ * To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/3.0/
+ * or send a letter to Creative Commons, 543 Howard Street, 5th Floor, San Francisco, California, 94105, USA.
+ */
+package simplesqlformatter.formatter;
+
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Splits a SQL script into statements, as the script is read. A
+ * statement ends with a semicolon, or with a batch separator, which is
+ * a line with nothing but GO or a slash. Separators inside string
+ * literals and comments are ignored. Statements are read one at a time,
+ * so memory is only needed for the longest statement. Statements that
+ * are empty are skipped. An exception reading the script is thrown
+ * from {@link #hasNext()} as an {@link UncheckedIOException}.
+ *
+ * @author Sualeh Fatehi
+ */
+public final class StatementSplitter
+  implements Iterator<String>
+{
+
+  private final TextWindow text;
+  private final LiteralScanner scanner;
+
+  private int position;
+  private int spanEnd;
+  private boolean lineStart = true;
+
+  private String statement;
+  private String separator;
+  private String nextStatement;
+  private String nextSeparator;
+
+  /**
+   * Splits a script read from a reader.
+   *
+   * @param reader
+   *        Reader for the SQL script
+   */
+  public StatementSplitter(final Reader reader)
+  {
+    text = new TextWindow(reader);
+    scanner = new LiteralScanner(text);
+  }
+
+  /**
+   * Gets the separator that ended the last statement returned by
+   * {@link #next()}, as it appears in the script.
+   *
+   * @return Separator, or an empty string if the statement ended at the
+   *         end of the script
+   */
+  public String getSeparator()
+  {
+    return separator;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see java.util.Iterator#hasNext()
+   */
+  public boolean hasNext()
+  {
+    while (nextStatement == null)
+    {
+      if (!readStatement())
+      {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see java.util.Iterator#next()
+   */
+  public String next()
+  {
+    if (!hasNext())
+    {
+      throw new NoSuchElementException();
+    }
+    statement = nextStatement;
+    separator = nextSeparator;
+    nextStatement = null;
+    nextSeparator = null;
+    return statement;
+  }
+
+  /**
+   * Statements cannot be removed.
+   *
+   * @see java.util.Iterator#remove()
+   */
+  public void remove()
+  {
+    throw new UnsupportedOperationException("Cannot remove statements");
+  }
+
+  /**
+   * Checks whether an offset is in the current span of plain SQL,
+   * extending the span if the plain SQL continues past its end.
+   */
+  private boolean isInSpan(final int index)
+  {
+    while (index >= spanEnd)
+    {
+      if (!scanner.extend())
+      {
+        return false;
+      }
+      spanEnd = scanner.getEnd();
+    }
+    return true;
+  }
+
+  /**
+   * Reads up to the end of the next statement.
+   *
+   * @return False at the end of the script
+   */
+  private boolean readStatement()
+  {
+    final int start = position;
+    while (true)
+    {
+      while (isInSpan(position))
+      {
+        final char c = text.charAt(position);
+        if (c == ';')
+        {
+          setNext(start, position, position + 1);
+          return true;
+        }
+        if (lineStart && (c == '/' || c == 'G' || c == 'g'))
+        {
+          final int separatorEnd = endOfSeparatorLine(position);
+          if (separatorEnd != -1)
+          {
+            setNext(start, position, separatorEnd);
+            lineStart = true;
+            return true;
+          }
+        }
+        if (c == '\n' || c == '\r')
+        {
+          lineStart = true;
+        }
+        else if (c > ' ')
+        {
+          lineStart = false;
+        }
+        position++;
+      }
+
+      if (!scanner.next())
+      {
+        break;
+      }
+      if (scanner.isLiteral())
+      {
+        // a comment that runs to the end of the line leaves the next
+        // line clear for a separator
+        final char last = text.charAt(scanner.getEnd() - 1);
+        lineStart = last == '\n' || last == '\r';
+        position = scanner.getEnd();
+      }
+      else
+      {
+        position = scanner.getStart();
+        spanEnd = scanner.getEnd();
+      }
+    }
+
+    checkError();
+    if (start == position)
+    {
+      return false;
+    }
+    setNext(start, position, position);
+    return true;
+  }
+
+  /**
+   * Checks whether a batch separator line starts at an offset.
+   *
+   * @return Offset after the separator line, including the line end, or
+   *         -1 if there is no separator
+   */
+  private int endOfSeparatorLine(final int index)
+  {
+    int i = index;
+    if (text.charAt(i) == '/')
+    {
+      i++;
+    }
+    else if (isInSpan(i + 1) && Character.toUpperCase(text.charAt(i + 1)) == 'O')
+    {
+      i = i + 2;
+    }
+    else
+    {
+      return -1;
+    }
+
+    while (isInSpan(i) && (text.charAt(i) == ' ' || text.charAt(i) == '\t'))
+    {
+      i++;
+    }
+    if (!isInSpan(i))
+    {
+      // only a literal can follow, so the line must end here
+      return text.fillTo(i) ? -1 : i;
+    }
+    if (text.charAt(i) == '\n')
+    {
+      return i + 1;
+    }
+    if (text.charAt(i) == '\r')
+    {
+      if (isInSpan(i + 1) && text.charAt(i + 1) == '\n')
+      {
+        return i + 2;
+      }
+      return i + 1;
+    }
+    return -1;
+  }
+
+  private void checkError()
+  {
+    try
+    {
+      text.checkError();
+    }
+    catch (final IOException e)
+    {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Sets the next statement, unless it is empty, and moves past its
+   * separator.
+   */
+  private void setNext(final int start,
+                       final int end,
+                       final int separatorEnd)
+  {
+    final String sql = text.subSequence(start, end).toString();
+    if (sql.trim().length() > 0)
+    {
+      nextStatement = sql;
+      nextSeparator = text.subSequence(end, separatorEnd).toString().trim();
+    }
+    position = separatorEnd;
+    text.release(position);
+  }
+
+}
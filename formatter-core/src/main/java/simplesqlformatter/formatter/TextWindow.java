@@ -0,0 +1,210 @@
+/*
+ * Copyright 2004-2013, Sualeh Fatehi <sualeh@hotmail.com>
+ * This work is licensed under the Creative Commons Attribution-Noncommercial-No Derivative Works 3.0 License.
+ * To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/3.0/
+ * or send a letter to Creative Commons, 543 Howard Street, 5th Floor, San Francisco, California, 94105, USA.
+ */
+package simplesqlformatter.formatter;
+
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * A window of text read from a reader. Offsets are always counted from
+ * the start of the whole text, so tokens keep their offsets as the
+ * window moves. Text is read on demand, and text that has been released
+ * is discarded the next time more text is read. Only characters from
+ * the first unreleased offset up to {@link #length()} can be accessed.
+ *
+ * @author Sualeh Fatehi
+ */
+final class TextWindow
+  implements CharSequence
+{
+
+  private final static int CHUNK_SIZE = 8192;
+  /**
+   * Largest buffer that is kept when the window is reset, so that one
+   * long literal does not hold on to memory.
+   */
+  private final static int RETAINED_SIZE = CHUNK_SIZE * 8;
+
+  private Reader reader;
+
+  private char[] buffer = new char[CHUNK_SIZE];
+  private int offset;
+  private int count;
+  private int released;
+  private boolean endOfText;
+  private IOException exception;
+
+  TextWindow(final Reader reader)
+  {
+    this.reader = reader;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see java.lang.CharSequence#charAt(int)
+   */
+  public char charAt(final int index)
+  {
+    return buffer[index - offset];
+  }
+
+  /**
+   * Gets the length of the text read so far, including text that has
+   * been released.
+   *
+   * @return Length of the text read so far
+   */
+  public int length()
+  {
+    return offset + count;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see java.lang.CharSequence#subSequence(int, int)
+   */
+  public CharSequence subSequence(final int start, final int end)
+  {
+    return new String(buffer, start - offset, end - start);
+  }
+
+  /**
+   * Gets the text in the window.
+   *
+   * @return Text in the window
+   */
+  @Override
+  public String toString()
+  {
+    return new String(buffer, 0, count);
+  }
+
+  /**
+   * Throws any exception that occurred while reading. A read error
+   * ends the text, so that it looks like the end of the input to the
+   * lexer.
+   *
+   * @throws IOException
+   *         On an exception from the reader
+   */
+  void checkError()
+    throws IOException
+  {
+    if (exception != null)
+    {
+      throw exception;
+    }
+  }
+
+  /**
+   * Reads more text into the window.
+   *
+   * @return False at the end of the text
+   */
+  boolean fill()
+  {
+    if (endOfText)
+    {
+      return false;
+    }
+
+    if (released > offset)
+    {
+      final int discard = released - offset;
+      System.arraycopy(buffer, discard, buffer, 0, count - discard);
+      count = count - discard;
+      offset = released;
+    }
+    if (count == buffer.length)
+    {
+      final char[] newBuffer = new char[buffer.length * 2];
+      System.arraycopy(buffer, 0, newBuffer, 0, count);
+      buffer = newBuffer;
+    }
+
+    try
+    {
+      int read;
+      do
+      {
+        read = reader.read(buffer, count, buffer.length - count);
+      } while (read == 0);
+      if (read == -1)
+      {
+        endOfText = true;
+        return false;
+      }
+      count = count + read;
+      return true;
+    }
+    catch (final IOException e)
+    {
+      exception = e;
+      endOfText = true;
+      return false;
+    }
+  }
+
+  /**
+   * Makes sure that text is available up to an offset, reading more
+   * text as needed.
+   *
+   * @param index
+   *        Offset in the text
+   * @return False if the text ends before the offset
+   */
+  boolean fillTo(final int index)
+  {
+    while (index >= length())
+    {
+      if (!fill())
+      {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Starts reading another text, reusing the buffer.
+   *
+   * @param reader
+   *        Reader for the text
+   */
+  void reset(final Reader reader)
+  {
+    this.reader = reader;
+    if (buffer.length > RETAINED_SIZE)
+    {
+      buffer = new char[CHUNK_SIZE];
+    }
+    offset = 0;
+    count = 0;
+    released = 0;
+    endOfText = false;
+    exception = null;
+  }
+
+  /**
+   * Releases the text before an offset, which will no longer be
+   * accessed.
+   *
+   * @param index
+   *        Offset in the text
+   */
+  void release(final int index)
+  {
+    if (index > released)
+    {
+      released = index;
+    }
+  }
+
+}
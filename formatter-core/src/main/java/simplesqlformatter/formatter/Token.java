@@ -7,8 +7,6 @@
 package simplesqlformatter.formatter;
 
 
-import org.apache.commons.lang3.StringUtils;
-
 /**
  * Represents a token, either a SQL token, a string literal, or a
  * comment.
@@ -56,10 +54,14 @@ public abstract class Token
   }
 
   final static int INDENT_CONTINUATION = -1;
+
   /**
-   * Token value.
+   * Text that the token was read from. The token does not keep a copy
+   * of its own value, only its offsets into this text.
    */
-  protected String token = "";
+  private final CharSequence source;
+  private final int start;
+  private final int end;
 
   /**
    * After the token value.
@@ -68,6 +70,13 @@ public abstract class Token
 
   private int indentLevel = INDENT_CONTINUATION;
 
+  Token(final CharSequence source, final int start, final int end)
+  {
+    this.source = source;
+    this.start = start;
+    this.end = end;
+  }
+
   /**
    * Builds a string for use in the final formatted SQL statement.
    * 
@@ -78,10 +87,14 @@ public abstract class Token
   public final String build(final String indent)
   {
 
-    final StringBuffer buffer = new StringBuffer();
+    final StringBuilder buffer = new StringBuilder();
 
-    buffer.append(StringUtils.repeat(indent, indentLevel)).append(token)
-      .append(afterToken);
+    if (indentLevel > 0)
+    {
+      buffer.append(indent.repeat(indentLevel));
+    }
+    appendTo(buffer);
+    buffer.append(afterToken);
 
     return buffer.toString();
 
@@ -119,7 +132,7 @@ public abstract class Token
     {
       return false;
     }
-    if (!this.token.equals(token.token))
+    if (!getToken().equals(token.getToken()))
     {
       return false;
     }
@@ -134,7 +147,9 @@ public abstract class Token
    */
   public final String getToken()
   {
-    return token;
+    final StringBuilder buffer = new StringBuilder(end - start);
+    appendTo(buffer);
+    return buffer.toString();
   }
 
   /**
@@ -151,7 +166,7 @@ public abstract class Token
   {
     int result;
     result = indentLevel;
-    result = 29 * result + token.hashCode();
+    result = 29 * result + getToken().hashCode();
     result = 29 * result + afterToken.hashCode();
     return result;
   }
@@ -176,7 +191,7 @@ public abstract class Token
       buffer.append(indentLevel);
     }
 
-    buffer.append(" ").append(" [").append(token).append("] ").append(" ")
+    buffer.append(" ").append(" [").append(getToken()).append("] ").append(" ")
       .append(afterToken.getName().toLowerCase());
 
     final String className = this.getClass().getName();
@@ -189,6 +204,14 @@ public abstract class Token
 
   }
 
+  /**
+   * Appends the value of the token, as it appears in formatted SQL.
+   * 
+   * @param buffer
+   *        Buffer to append to
+   */
+  abstract void appendTo(StringBuilder buffer);
+
   /**
    * Gets what follows the after token.
    * 
@@ -199,9 +222,19 @@ public abstract class Token
     return afterToken;
   }
 
-  final void nextIndentLevel()
+  final int getEnd()
+  {
+    return end;
+  }
+
+  final CharSequence getSource()
+  {
+    return source;
+  }
+
+  final int getStart()
   {
-    indentLevel++;
+    return start;
   }
 
   final void setAfterToken(final AfterToken afterToken)
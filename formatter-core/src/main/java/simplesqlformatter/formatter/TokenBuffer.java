@@ -0,0 +1,376 @@
+/*
+ * Copyright 2004-2013, Sualeh Fatehi <sualeh@hotmail.com>
+ * This work is licensed under the Creative Commons Attribution-Noncommercial-No Derivative Works 3.0 License.
+ * To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/3.0/
+ * or send a letter to Creative Commons, 543 Howard Street, 5th Floor, San Francisco, California, 94105, USA.
+ */
+package simplesqlformatter.formatter;
+
+
+import simplesqlformatter.formatter.FormatterOptions.KeywordCase;
+
+/**
+ * Tokens of a statement, held in parallel arrays rather than as
+ * objects. Each token has a kind, keyword roles, start and end offsets
+ * into the text, what follows it, and an indent level. Tokens are
+ * numbered from the start of the statement, and keep their numbers
+ * when tokens that have been released are discarded to make room, so
+ * the buffer only needs to hold the tokens that are still being laid
+ * out. A buffer can be reset and used again for another statement.
+ *
+ * @author Sualeh Fatehi
+ */
+final class TokenBuffer
+{
+
+  /**
+   * Kind of a SQL token. Other kinds are literals, numbered one more
+   * than the position of their delimiter in
+   * {@link LiteralDelimiter#ALLDELIMITERS}.
+   */
+  final static byte SQL = 0;
+
+  /**
+   * Codes for what follows a token.
+   */
+  final static byte NOTHING = 0;
+  final static byte SPACE = 1;
+  final static byte NEWLINE = 2;
+
+  private final static Token.AfterToken[] AFTERTOKENS = {
+      Token.AfterToken.NOTHING, Token.AfterToken.SPACE,
+      Token.AfterToken.NEWLINE,
+  };
+
+  private final static int INITIAL_CAPACITY = 64;
+
+  private CharSequence source;
+
+  private byte[] kinds = new byte[INITIAL_CAPACITY];
+  private int[] roles = new int[INITIAL_CAPACITY];
+  private int[] starts = new int[INITIAL_CAPACITY];
+  private int[] ends = new int[INITIAL_CAPACITY];
+  private byte[] afters = new byte[INITIAL_CAPACITY];
+  private int[] indentLevels = new int[INITIAL_CAPACITY];
+
+  /**
+   * Number of the first token in the arrays.
+   */
+  private int base;
+  /**
+   * Number of tokens added since the start of the statement.
+   */
+  private int size;
+  /**
+   * Number of the first token that is still needed.
+   */
+  private int released;
+
+  /**
+   * Adds a literal.
+   *
+   * @param delimiter
+   *        Literal delimiter
+   * @param start
+   *        Start offset in the text
+   * @param end
+   *        End offset in the text
+   * @return Number of the token
+   */
+  int addLiteral(final LiteralDelimiter delimiter,
+                 final int start,
+                 final int end)
+  {
+    int slot = 0;
+    while (LiteralDelimiter.ALLDELIMITERS[slot] != delimiter)
+    {
+      slot++;
+    }
+
+    final int index = add((byte) (slot + 1), 0, start, end);
+    if (delimiter == LiteralDelimiter.CSTYLECOMMENT ||
+        delimiter == LiteralDelimiter.SQLCOMMENT)
+    {
+      // a comment ends its line; a SQL comment keeps the line break
+      // that ended it, so formatted SQL formats to itself
+      afters[index - base] = NEWLINE;
+    }
+    else if (delimiter == LiteralDelimiter.DOUBLEQUOTEDSTRING ||
+             delimiter == LiteralDelimiter.SINGLEQUOTEDSTRING)
+    {
+      afters[index - base] = SPACE;
+    }
+    return index;
+  }
+
+  /**
+   * Adds a SQL token.
+   *
+   * @param tokenRoles
+   *        Roles of the token, as classified by the keyword table
+   * @param start
+   *        Start offset in the text
+   * @param end
+   *        End offset in the text
+   * @return Number of the token
+   */
+  int addSQL(final int tokenRoles, final int start, final int end)
+  {
+    return add(SQL, tokenRoles, start, end);
+  }
+
+  /**
+   * Builds a token, with its indent and what follows it, into a buffer
+   * for the final formatted SQL statement.
+   *
+   * @param index
+   *        Number of the token
+   * @param buffer
+   *        Buffer to append to
+   * @param options
+   *        Formatter options
+   */
+  void build(final int index,
+             final StringBuilder buffer,
+             final FormatterOptions options)
+  {
+    final int i = index - base;
+    if (indentLevels[i] > 0)
+    {
+      buffer.append(options.getIndentTable().get(indentLevels[i]));
+    }
+    if (kinds[i] == SQL)
+    {
+      if ((roles[i] & Keywords.KEYWORD) != 0)
+      {
+        SQLToken.appendTo(buffer,
+                          source,
+                          starts[i],
+                          ends[i],
+                          options.getKeywordCase());
+      }
+      else
+      {
+        SQLToken.appendTo(buffer,
+                          source,
+                          starts[i],
+                          ends[i],
+                          KeywordCase.PRESERVE);
+      }
+    }
+    else
+    {
+      LiteralToken.appendTo(buffer,
+                            source,
+                            starts[i],
+                            ends[i],
+                            LiteralDelimiter.ALLDELIMITERS[kinds[i] - 1]);
+    }
+    if (afters[i] == SPACE)
+    {
+      buffer.append(' ');
+    }
+    else if (afters[i] == NEWLINE)
+    {
+      buffer.append(options.getLineSeparator());
+    }
+  }
+
+  byte getAfter(final int index)
+  {
+    return afters[index - base];
+  }
+
+  /**
+   * Gets the delimiter of a literal.
+   *
+   * @param index
+   *        Number of the token
+   * @return Literal delimiter, or null for a SQL token
+   */
+  LiteralDelimiter getDelimiter(final int index)
+  {
+    final byte kind = kinds[index - base];
+    if (kind == SQL)
+    {
+      return null;
+    }
+    return LiteralDelimiter.ALLDELIMITERS[kind - 1];
+  }
+
+  int getEnd(final int index)
+  {
+    return ends[index - base];
+  }
+
+  int getStart(final int index)
+  {
+    return starts[index - base];
+  }
+
+  /**
+   * Checks whether a SQL token plays a role.
+   *
+   * @param index
+   *        Number of the token
+   * @param role
+   *        Role, from the keyword table
+   * @return Whether the token plays the role
+   */
+  boolean is(final int index, final int role)
+  {
+    return (roles[index - base] & role) != 0;
+  }
+
+  boolean isLiteral(final int index)
+  {
+    return kinds[index - base] != SQL;
+  }
+
+  /**
+   * Releases the tokens before a token, which will no longer be
+   * accessed.
+   *
+   * @param index
+   *        Number of the first token that is still needed
+   */
+  void release(final int index)
+  {
+    if (index > released)
+    {
+      released = index;
+    }
+  }
+
+  /**
+   * Empties the buffer, to hold the tokens of another statement.
+   *
+   * @param source
+   *        Text that tokens are read from
+   */
+  void reset(final CharSequence source)
+  {
+    this.source = source;
+    base = 0;
+    size = 0;
+    released = 0;
+  }
+
+  void setAfter(final int index, final byte after)
+  {
+    afters[index - base] = after;
+  }
+
+  void setIndentLevel(final int index, final int indentLevel)
+  {
+    indentLevels[index - base] = indentLevel;
+  }
+
+  int getIndentLevel(final int index)
+  {
+    return indentLevels[index - base];
+  }
+
+  /**
+   * Gets the number of tokens added since the start of the statement.
+   *
+   * @return Number of tokens
+   */
+  int size()
+  {
+    return size;
+  }
+
+  /**
+   * Makes a token object, with the layout of a token.
+   *
+   * @param index
+   *        Number of the token
+   * @param keywordCase
+   *        Case of keywords in the token value
+   * @return Token object
+   */
+  Token toToken(final int index, final KeywordCase keywordCase)
+  {
+    final int i = index - base;
+    final Token token;
+    if (kinds[i] == SQL)
+    {
+      token = new SQLToken(source, starts[i], ends[i], roles[i], keywordCase);
+    }
+    else
+    {
+      token = new LiteralToken(source,
+                               starts[i],
+                               ends[i],
+                               LiteralDelimiter.ALLDELIMITERS[kinds[i] - 1]);
+    }
+    token.setAfterToken(AFTERTOKENS[afters[i]]);
+    token.setIndentLevel(indentLevels[i]);
+    return token;
+  }
+
+  private int add(final byte kind,
+                  final int tokenRoles,
+                  final int start,
+                  final int end)
+  {
+    if (size - base == kinds.length)
+    {
+      makeRoom();
+    }
+
+    final int i = size - base;
+    kinds[i] = kind;
+    roles[i] = tokenRoles;
+    starts[i] = start;
+    ends[i] = end;
+    afters[i] = NOTHING;
+    indentLevels[i] = Token.INDENT_CONTINUATION;
+    size++;
+    return size - 1;
+  }
+
+  /**
+   * Discards released tokens, or grows the arrays if most of the tokens
+   * are still needed.
+   */
+  private void makeRoom()
+  {
+    final int discard = released - base;
+    final int keep = size - released;
+    if (discard >= kinds.length / 2)
+    {
+      System.arraycopy(kinds, discard, kinds, 0, keep);
+      System.arraycopy(roles, discard, roles, 0, keep);
+      System.arraycopy(starts, discard, starts, 0, keep);
+      System.arraycopy(ends, discard, ends, 0, keep);
+      System.arraycopy(afters, discard, afters, 0, keep);
+      System.arraycopy(indentLevels, discard, indentLevels, 0, keep);
+      base = released;
+      return;
+    }
+
+    final int capacity = kinds.length * 2;
+    final byte[] newKinds = new byte[capacity];
+    final int[] newRoles = new int[capacity];
+    final int[] newStarts = new int[capacity];
+    final int[] newEnds = new int[capacity];
+    final byte[] newAfters = new byte[capacity];
+    final int[] newIndentLevels = new int[capacity];
+    System.arraycopy(kinds, discard, newKinds, 0, keep);
+    System.arraycopy(roles, discard, newRoles, 0, keep);
+    System.arraycopy(starts, discard, newStarts, 0, keep);
+    System.arraycopy(ends, discard, newEnds, 0, keep);
+    System.arraycopy(afters, discard, newAfters, 0, keep);
+    System.arraycopy(indentLevels, discard, newIndentLevels, 0, keep);
+    kinds = newKinds;
+    roles = newRoles;
+    starts = newStarts;
+    ends = newEnds;
+    afters = newAfters;
+    indentLevels = newIndentLevels;
+    base = released;
+  }
+
+}
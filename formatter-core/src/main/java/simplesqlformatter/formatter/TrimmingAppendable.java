@@ -0,0 +1,149 @@
+/*
+ * Copyright 2004-2013, Sualeh Fatehi <sualeh@hotmail.com>
+ * This work is licensed under the Creative Commons Attribution-Noncommercial-No Derivative Works 3.0 License.
+ * To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/3.0/
+ * or send a letter to Creative Commons, 543 Howard Street, 5th Floor, San Francisco, California, 94105, USA.
+ */
+package simplesqlformatter.formatter;
+
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Appends text to a writer, with whitespace trimmed from both ends, in
+ * the same way as {@link String#trim()}. Leading whitespace is dropped,
+ * and whitespace is held back until it is known not to be at the end of
+ * the text. Text in a string builder is written through a reusable
+ * buffer, without making a string of it.
+ *
+ * @author Sualeh Fatehi
+ */
+final class TrimmingAppendable
+  implements Appendable
+{
+
+  private Writer out;
+  private final StringBuilder whitespace = new StringBuilder();
+  private final char[] buffer = new char[1024];
+  private boolean started;
+
+  TrimmingAppendable(final Writer out)
+  {
+    this.out = out;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see java.lang.Appendable#append(char)
+   */
+  public Appendable append(final char c)
+    throws IOException
+  {
+    if (c <= ' ')
+    {
+      if (started)
+      {
+        whitespace.append(c);
+      }
+    }
+    else
+    {
+      if (whitespace.length() > 0)
+      {
+        write(whitespace, 0, whitespace.length());
+        whitespace.setLength(0);
+      }
+      out.write(c);
+      started = true;
+    }
+    return this;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see java.lang.Appendable#append(java.lang.CharSequence)
+   */
+  public Appendable append(final CharSequence csq)
+    throws IOException
+  {
+    return append(csq, 0, csq.length());
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see java.lang.Appendable#append(java.lang.CharSequence, int, int)
+   */
+  public Appendable append(final CharSequence csq,
+                           final int start,
+                           final int end)
+    throws IOException
+  {
+    // find the text that is not whitespace, and pass it on in one piece
+    int first = start;
+    if (!started)
+    {
+      while (first < end && csq.charAt(first) <= ' ')
+      {
+        first++;
+      }
+    }
+    int last = end;
+    while (last > first && csq.charAt(last - 1) <= ' ')
+    {
+      last--;
+    }
+
+    if (first < last)
+    {
+      if (whitespace.length() > 0)
+      {
+        write(whitespace, 0, whitespace.length());
+        whitespace.setLength(0);
+      }
+      write(csq, first, last);
+      started = true;
+    }
+    if (started)
+    {
+      whitespace.append(csq, last, end);
+    }
+    return this;
+  }
+
+  /**
+   * Starts appending another text, to another writer.
+   *
+   * @param out
+   *        Writer to append to
+   */
+  void reset(final Writer out)
+  {
+    this.out = out;
+    whitespace.setLength(0);
+    started = false;
+  }
+
+  private void write(final CharSequence csq, final int start, final int end)
+    throws IOException
+  {
+    if (csq instanceof StringBuilder)
+    {
+      final StringBuilder builder = (StringBuilder) csq;
+      for (int i = start; i < end; i = i + buffer.length)
+      {
+        final int length = Math.min(buffer.length, end - i);
+        builder.getChars(i, i + length, buffer, 0);
+        out.write(buffer, 0, length);
+      }
+    }
+    else
+    {
+      out.append(csq, start, end);
+    }
+  }
+
+}
@@ -0,0 +1,771 @@
+package simplesqlformatter.test;
+
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import junit.framework.TestCase;
+
+import org.apache.commons.io.IOUtils;
+
+import simplesqlformatter.formatter.EmbeddedSQL;
+import simplesqlformatter.formatter.FormatListener;
+import simplesqlformatter.formatter.FormatResult;
+import simplesqlformatter.formatter.FormatStats;
+import simplesqlformatter.formatter.FormatterOptions;
+import simplesqlformatter.formatter.FormatterSession;
+import simplesqlformatter.formatter.JavaSourceFormatter;
+import simplesqlformatter.formatter.SQLFormatter;
+import simplesqlformatter.formatter.StatementSplitter;
+import simplesqlformatter.formatter.Token;
+
+public class TestSQLFormatter
+  extends TestCase
+{
+
+  private final static int MAXFILES = 10;
+
+  private static String[] sqlOriginal = new String[MAXFILES];
+  private static String[] sqlFormatted = new String[MAXFILES];
+
+  /**
+   * System specific file separator character.
+   */
+  public final static char FILE_SEPARATOR = System
+    .getProperty("file.separator").charAt(0);
+  public final static String NEWLINE = System.getProperty("line.separator");
+  public final static int MAX_LINE_LENGTH = 70;
+
+  public static String compare(String text1, String text2)
+  {
+
+    char[] characters1 = new char[text1.length()];
+    char[] characters2 = new char[text2.length()];
+
+    StringBuffer compare = new StringBuffer();
+
+    text1.getChars(0, text1.length(), characters1, 0);
+    text2.getChars(0, text2.length(), characters2, 0);
+    for (int i = 0; i < characters1.length; i++)
+    {
+      char character1 = 0, character2 = 0;
+      try
+      {
+        character1 = characters1[i];
+        character2 = characters2[i];
+      }
+      catch (ArrayIndexOutOfBoundsException e)
+      {
+        compare.append(character1);
+        continue;
+      }
+      if (character1 == character2)
+      {
+        compare.append(character1);
+      }
+      else
+      {
+        compare.append("~" + character1 + "=" + character2 + "~");
+      }
+    }
+
+    return compare.toString();
+
+  }
+
+  public static String stripNewlines(String text)
+  {
+
+    char[] characters = new char[text.length()];
+    StringBuffer strippedText = new StringBuffer();
+
+    text.getChars(0, text.length(), characters, 0);
+    for (int i = 0; i < characters.length; i++)
+    {
+      char character = characters[i];
+      if (character != '\r')
+      {
+        strippedText.append(character);
+      }
+    }
+
+    return strippedText.toString();
+
+  }
+
+  /**
+   * Converts SQL line comments to C-style comments, as the formatter
+   * does.
+   */
+  public static String toCStyleComments(String text)
+  {
+
+    StringBuffer converted = new StringBuffer();
+
+    int position = 0;
+    int comment;
+    while ((comment = text.indexOf("--", position)) != -1)
+    {
+      int lineEnd = text.indexOf('\n', comment);
+      if (lineEnd == -1)
+      {
+        lineEnd = text.length();
+      }
+      converted.append(text.substring(position, comment)).append("/*")
+        .append(text.substring(comment + 2, lineEnd)).append("*/");
+      position = lineEnd;
+    }
+    converted.append(text.substring(position));
+
+    return converted.toString();
+
+  }
+
+  public static String stripWhitespace(String text)
+  {
+
+    char[] characters = new char[text.length()];
+    StringBuffer strippedText = new StringBuffer();
+
+    text.getChars(0, text.length(), characters, 0);
+    for (int i = 0; i < characters.length; i++)
+    {
+      char character = characters[i];
+      if (!Character.isWhitespace(character))
+      {
+        strippedText.append(character);
+      }
+    }
+
+    return strippedText.toString();
+
+  }
+
+  private static String readFully(InputStream stream)
+    throws IOException
+  {
+    final StringWriter writer = new StringWriter();
+    IOUtils.copy(stream, writer);
+    return writer.toString();
+  }
+
+  public TestSQLFormatter(String name)
+  {
+    super(name);
+  }
+
+  public void setUp()
+  {
+
+    // read files
+    for (int i = 0; i < MAXFILES; i++)
+    {
+      try
+      {
+        InputStream stream;
+        final String sqlOriginalFile = "/original/" + (i + 1) + ".sql";
+        final String sqlFormattedFile = "/formatted/~" + (i + 1) + ".sql";
+
+        stream = this.getClass().getResourceAsStream(sqlOriginalFile);
+        sqlOriginal[i] = readFully(stream);
+
+        stream = this.getClass().getResourceAsStream(sqlFormattedFile);
+        sqlFormatted[i] = readFully(stream);
+      }
+      catch (IOException e)
+      {
+        fail();
+      }
+    }
+
+  }
+
+  public void testJavaString()
+  {
+
+    final SQLFormatter formatter = new SQLFormatter();
+    final String javaString = "\"select a, \\\"b\\\" -- note\\n\" +\n"
+                              + "  \"from t \" +\"where c = 'x\\ty\\u0021'\";";
+    assertEquals(formatter.format("select a, \"b\" -- note\nfrom t where c = 'x\ty!'"),
+                 formatter.format(javaString));
+
+    final StringWriter writer = new StringWriter();
+    try
+    {
+      formatter.format(new StringReader(javaString), writer);
+    }
+    catch (final IOException e)
+    {
+      fail(e.getMessage());
+    }
+    assertEquals(formatter.format(javaString), writer.toString());
+
+  }
+
+  public void testJavaSource()
+  {
+
+    final SQLFormatter formatter = new SQLFormatter();
+    final JavaSourceFormatter javaFormatter = new JavaSourceFormatter(formatter);
+    final String source = "class Dao {\n"
+                          + "  // \"select * from comment\"\n"
+                          + "  @Query(\"select u from User u\")\n"
+                          + "  static final String Q = \"select a \" +\n"
+                          + "    \"from t where c = '\\\"'\";\n"
+                          + "  String s = \"select * from \" + table;\n"
+                          + "  String t = \"\"\"\n"
+                          + "      update t set a = 1\n"
+                          + "      \"\"\";\n" + "}\n";
+
+    final List<EmbeddedSQL> statements = javaFormatter.find(source);
+    assertEquals(3, statements.size());
+    assertEquals(3, statements.get(0).getLine());
+    assertEquals("select a from t where c = '\"'", statements.get(1).getSQL());
+    assertEquals("update t set a = 1\n", statements.get(2).getSQL());
+
+    final String formattedSource = javaFormatter.format(source);
+    assertTrue(formattedSource, formattedSource
+      .contains("\"select * from \" + table"));
+    assertTrue(formattedSource, formattedSource.contains("      UPDATE\n"));
+    assertEquals(formattedSource, javaFormatter.format(formattedSource));
+    for (final EmbeddedSQL statement: javaFormatter.find(formattedSource))
+    {
+      assertTrue(statement.isFormatted());
+      assertEquals(formatter.format(statement.getSQL()), statement.getSQL()
+        .trim());
+    }
+
+  }
+
+  public void testJavaSourceMessages()
+  {
+
+    final JavaSourceFormatter javaFormatter = new JavaSourceFormatter(new SQLFormatter());
+    final String source = "class Window {\n"
+                          + "  String open = \"Select a file\";\n"
+                          + "  String remove = \"Delete\";\n"
+                          + "  String confirm = \"Delete all rows?\";\n"
+                          + "  String help = \"Update your settings, \" +\n"
+                          + "    \"then restart\";\n"
+                          + "  String add = \"Insert a disk\";\n"
+                          + "  String pick = \"Select from\";\n"
+                          + "  String q = \"insert into t values (1)\";\n"
+                          + "  String r = \"delete from t\";\n" + "}\n";
+
+    // messages that start with a SQL keyword are left alone
+    final List<EmbeddedSQL> statements = javaFormatter.find(source);
+    assertEquals(2, statements.size());
+    assertEquals("insert into t values (1)", statements.get(0).getSQL());
+    assertEquals("delete from t", statements.get(1).getSQL());
+    final String formattedSource = javaFormatter.format(source);
+    assertTrue(formattedSource, formattedSource
+      .startsWith(source.substring(0, source.indexOf("  String q"))));
+
+  }
+
+  public void testDoubleFormatting()
+  {
+
+    for (int i = 0; i < sqlOriginal.length; i++)
+    {
+      String sqlStatement = toCStyleComments(sqlOriginal[i]);
+      String formattedSQL = sqlOriginal[i];
+
+      formattedSQL = new SQLFormatter().format(formattedSQL);
+      final String formattedOnce = formattedSQL;
+      formattedSQL = new SQLFormatter().format(formattedSQL);
+      // formatted SQL formats to itself
+      assertEquals("Error formatting again - " + (i + 1) + ".sql",
+                   formattedOnce,
+                   formattedSQL);
+
+      if (!stripWhitespace(sqlStatement)
+        .equalsIgnoreCase(stripWhitespace(formattedSQL)))
+      {
+        System.out
+          .println(compare(stripWhitespace(sqlStatement).toLowerCase(),
+                           stripWhitespace(formattedSQL).toLowerCase()));
+      }
+
+      assertEquals(stripWhitespace(sqlStatement).toLowerCase(),
+                   stripWhitespace(formattedSQL).toLowerCase());
+    }
+
+  }
+
+  public void testFormat()
+  {
+
+    for (int i = 0; i < sqlOriginal.length; i++)
+    {
+      String formattedSQL = new SQLFormatter().format(sqlOriginal[i]);
+      assertEquals("Error formatting - " + (i + 1) + ".sql",
+                   stripNewlines(sqlFormatted[i].trim()),
+                   stripNewlines(formattedSQL.trim()));
+    }
+
+  }
+
+  public void testFormatResult()
+  {
+
+    final SQLFormatter formatter = new SQLFormatter();
+    for (int i = 0; i < sqlOriginal.length; i++)
+    {
+      final FormatResult result = formatter.formatResult(sqlOriginal[i]);
+      assertEquals("Error formatting - " + (i + 1) + ".sql",
+                   formatter.format(sqlOriginal[i]),
+                   result.getText());
+
+      final Token[] tokens = formatter.parse(sqlOriginal[i]);
+      assertEquals(tokens.length, result.getTokens().size());
+      for (int j = 0; j < tokens.length; j++)
+      {
+        assertEquals(tokens[j].toString(), result.getTokens().get(j)
+          .toString());
+      }
+      // the stats do not count the empty tokens at each end
+      assertEquals(tokens.length - 2, result.getStats().getTokenCount());
+    }
+
+    final FormatResult result = formatter.formatResult("-- note\ncreate table t (a int)");
+    assertEquals("-- note\ncreate table t (a int)", result.getText());
+    assertTrue(result.getTokens().size() > 2);
+
+    // tokens have the keyword case of the formatter
+    final SQLFormatter lowerFormatter = new SQLFormatter(FormatterOptions
+      .builder().keywordCase(FormatterOptions.KeywordCase.LOWER).build());
+    final FormatResult lowerResult = lowerFormatter
+      .formatResult("SELECT A, count(B) FROM T GROUP  BY A");
+    final StringBuffer tokenText = new StringBuffer();
+    for (final Token token: lowerResult.getTokens())
+    {
+      tokenText.append(token.getToken());
+    }
+    assertEquals(stripWhitespace(lowerResult.getText()),
+                 stripWhitespace(tokenText.toString()));
+    final StringBuffer parsedText = new StringBuffer();
+    for (final Token token: lowerFormatter.parse("SELECT A FROM T"))
+    {
+      parsedText.append(token.getToken());
+    }
+    assertEquals("selectAfromT", stripWhitespace(parsedText.toString()));
+
+  }
+
+  public void testFormatStats()
+  {
+
+    final List<FormatStats> allStats = new ArrayList<FormatStats>();
+    final SQLFormatter formatter = new SQLFormatter();
+    formatter.setFormatListener(new FormatListener()
+    {
+      public void formatted(final FormatStats stats)
+      {
+        allStats.add(stats);
+      }
+    });
+
+    final String sql = "select a, count(b) from t where c in (select d from e) -- note";
+    assertEquals(new SQLFormatter().format(sql), formatter.format(sql));
+    assertEquals(1, allStats.size());
+
+    final FormatStats stats = allStats.get(0);
+    assertEquals(19, stats.getTokenCount());
+    assertEquals(1, stats.getLiteralCount());
+    assertEquals(1, stats.getMaxDepth());
+    long time = 0;
+    for (final FormatStats.Stage stage: FormatStats.Stage.values())
+    {
+      assertTrue(stats.getTime(stage) >= 0);
+      time = time + stats.getTime(stage);
+    }
+    assertEquals(time, stats.getTotalTime());
+
+  }
+
+  public void testFormatterSession()
+    throws IOException
+  {
+
+    final SQLFormatter formatter = new SQLFormatter();
+    final FormatterSession session = formatter.newSession();
+    for (int repeat = 0; repeat < 2; repeat++)
+    {
+      for (int i = 0; i < sqlOriginal.length; i++)
+      {
+        final String formattedSql = new SQLFormatter().format(sqlOriginal[i]);
+        assertEquals(formattedSql, session.format(sqlOriginal[i]));
+        final StringWriter writer = new StringWriter();
+        session.format(new StringReader(sqlOriginal[i]), writer);
+        assertEquals(formattedSql, writer.toString());
+      }
+    }
+
+    // sub-selects nested deeper than the indent table
+    final StringBuffer nested = new StringBuffer("select a from t where b in ");
+    final StringBuffer indent = new StringBuffer();
+    for (int depth = 0; depth < 40; depth++)
+    {
+      nested.append("(select a from t where b in ");
+      indent.append("    ");
+    }
+    nested.append("1");
+    for (int depth = 0; depth < 40; depth++)
+    {
+      nested.append(")");
+    }
+    final String formattedSql = formatter.newSession().format(nested
+      .toString());
+    assertTrue(formattedSql.indexOf("\n" + indent + "FROM") > 0);
+
+  }
+
+  public void testFormattersCollected()
+    throws InterruptedException
+  {
+
+    final List<WeakReference<SQLFormatter>> formatters = new ArrayList<WeakReference<SQLFormatter>>();
+    for (int i = 0; i < 100; i++)
+    {
+      final SQLFormatter formatter = new SQLFormatter();
+      formatter.format(sqlOriginal[i % sqlOriginal.length]);
+      formatter.formatResult(sqlOriginal[i % sqlOriginal.length]);
+      formatters.add(new WeakReference<SQLFormatter>(formatter));
+    }
+
+    // the session of this thread does not keep the formatters alive
+    int collected = 0;
+    for (int repeat = 0; repeat < 50 && collected < formatters.size(); repeat++)
+    {
+      System.gc();
+      Thread.sleep(10);
+      collected = 0;
+      for (final WeakReference<SQLFormatter> formatter: formatters)
+      {
+        if (formatter.get() == null)
+        {
+          collected++;
+        }
+      }
+    }
+    assertEquals(formatters.size(), collected);
+
+  }
+
+  public void testFormatterOptions()
+  {
+
+    final FormatterOptions options = FormatterOptions.builder().indent(4)
+      .keywordCase(FormatterOptions.KeywordCase.LOWER)
+      .lineSeparator("\r\n").build();
+    final SQLFormatter formatter = new SQLFormatter(options);
+    assertEquals(4, formatter.getIndent());
+    assertEquals("select\r\n    a,\r\n    b\r\nfrom\r\n    t",
+                 formatter.format("SELECT a, b FROM t"));
+
+    // a changed indent leaves the rest of the options
+    final SQLFormatter tabFormatter = new SQLFormatter(options.toBuilder()
+      .indent(-1).build());
+    assertEquals(-1, tabFormatter.getIndent());
+    assertEquals("\r\n", tabFormatter.getOptions().getLineSeparator());
+    assertEquals(2, options.toBuilder().indent("  ").build().getIndent()
+      .length());
+
+  }
+
+  public void testSharedFormatter()
+    throws Exception
+  {
+
+    final FormatterOptions options = FormatterOptions.builder().indent(3)
+      .keywordCase(FormatterOptions.KeywordCase.PRESERVE).build();
+    final SQLFormatter formatter = new SQLFormatter(options);
+    final String[] expected = new String[sqlOriginal.length];
+    for (int i = 0; i < sqlOriginal.length; i++)
+    {
+      expected[i] = new SQLFormatter(options).format(sqlOriginal[i]);
+    }
+
+    final int threadCount = 8;
+    final CyclicBarrier barrier = new CyclicBarrier(threadCount);
+    final ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+    try
+    {
+      final List<Future<String>> results = new ArrayList<Future<String>>();
+      for (int thread = 0; thread < threadCount; thread++)
+      {
+        final int offset = thread;
+        results.add(executor.submit(new Callable<String>()
+        {
+          public String call()
+            throws Exception
+          {
+            barrier.await();
+            for (int repeat = 0; repeat < 200; repeat++)
+            {
+              final int i = (offset + repeat) % sqlOriginal.length;
+              final String formattedSql;
+              if (repeat % 2 == 0)
+              {
+                formattedSql = formatter.format(sqlOriginal[i]);
+              }
+              else
+              {
+                final StringWriter writer = new StringWriter();
+                formatter.format(new StringReader(sqlOriginal[i]), writer);
+                formattedSql = writer.toString();
+              }
+              if (!expected[i].equals(formattedSql))
+              {
+                return "Error formatting " + (i + 1) + ".sql on thread " +
+                       offset;
+              }
+            }
+            return null;
+          }
+        }));
+      }
+      for (final Future<String> result: results)
+      {
+        assertNull(result.get());
+      }
+    }
+    finally
+    {
+      executor.shutdownNow();
+    }
+
+  }
+
+  public void testIsEquivalent()
+  {
+
+    final SQLFormatter formatter = new SQLFormatter();
+    for (int i = 0; i < sqlOriginal.length; i++)
+    {
+      assertTrue("Error comparing - " + (i + 1) + ".sql",
+                 formatter.isEquivalent(sqlOriginal[i],
+                                        formatter.format(sqlOriginal[i])));
+    }
+    assertTrue(formatter.isEquivalent("select a -- note\nfrom t order  by a",
+                                      "SELECT a /* note*/\nFROM t ORDER BY a"));
+    assertFalse(formatter.isEquivalent("select a -- x */ y\nfrom t",
+                                       "SELECT a /* x */ y*/ FROM t"));
+    assertFalse(formatter.isEquivalent("select 'it''s' from t",
+                                       "SELECT 'it' 's' FROM t"));
+    assertFalse(formatter.isEquivalent("select a from t",
+                                       "SELECT A FROM t"));
+    assertFalse(formatter.isEquivalent("select a from t", "SELECT a FROM"));
+
+  }
+
+  public void testIsSQL()
+  {
+
+    final SQLFormatter formatter = new SQLFormatter();
+    for (int i = 0; i < sqlOriginal.length; i++)
+    {
+      assertTrue("Error checking - " + (i + 1) + ".sql",
+                 formatter.isSQL(sqlOriginal[i]));
+    }
+    assertTrue(formatter.isSQL("  -- note\n/* select */ 'x' Insert into t"));
+    assertTrue(formatter.isSQL("delete from t"));
+    assertFalse(formatter.isSQL("-- select\ncreate table t"));
+    assertFalse(formatter.isSQL("/* only a comment */"));
+    assertFalse(formatter.isSQL("selection of rows"));
+    assertFalse(formatter.isSQL(""));
+    assertFalse(formatter.isSQL(null));
+
+    // a long message that is not SQL
+    final StringBuffer message = new StringBuffer("Updated ");
+    while (message.length() < 100000)
+    {
+      message.append("(the rest of a long message) ");
+    }
+    assertFalse(formatter.isSQL(message.toString()));
+
+  }
+
+  public void testLiterals()
+    throws IOException
+  {
+
+    final SQLFormatter formatter = new SQLFormatter();
+
+    // a doubled quote does not end a string
+    final String quoted = formatter
+      .format("select 'it''s', \"a\"\"b\" from t where c = ''''");
+    assertTrue(quoted, quoted.contains("'it''s'"));
+    assertTrue(quoted, quoted.contains("\"a\"\"b\""));
+    assertTrue(quoted, quoted.contains("''''"));
+    assertEquals(quoted, formatter.format(quoted));
+
+    // a SQL comment that holds a C-style comment delimiter stays a SQL
+    // comment
+    assertTrue(formatter.format("select a -- note\nfrom t")
+      .contains("/* note*/"));
+    for (final String comment: new String[] {
+        "-- note */ here", "-- /* note", "--/", "-- a */",
+    })
+    {
+      final String formatted = formatter.format("select a " + comment +
+                                                "\nfrom t");
+      assertTrue(formatted, formatted.contains(comment + "\n"));
+      assertTrue(formatted, formatted.contains("FROM"));
+      assertEquals(formatted, formatter.format(formatted));
+    }
+
+    // a carriage return ends a SQL comment, even with a newline later on
+    final String lines = formatter.format("select a -- note\rfrom t -- end\n");
+    assertTrue(lines, lines.contains("FROM"));
+    assertTrue(formatter.isEquivalent("select a -- note\rfrom t -- end\n",
+                                      lines));
+
+    // and the separator does not go inside it
+    final StringWriter script = new StringWriter();
+    formatter.formatScript(new StringReader("select a from t -- end */\n;"),
+                           script);
+    assertTrue(script.toString(), script.toString().endsWith("-- end */\n;"));
+
+  }
+
+  public void testParallelScript()
+    throws IOException
+  {
+
+    final StringBuffer script = new StringBuffer();
+    for (int repeat = 0; repeat < 20; repeat++)
+    {
+      for (int i = 0; i < sqlOriginal.length; i++)
+      {
+        script.append(sqlOriginal[i]).append(";\n");
+      }
+    }
+
+    final StringWriter sequential = new StringWriter();
+    new SQLFormatter().formatScript(new StringReader(script.toString()),
+                                    sequential);
+    final StringWriter parallel = new StringWriter();
+    new SQLFormatter().formatScript(new StringReader(script.toString()),
+                                    parallel,
+                                    4);
+    assertEquals(sequential.toString(), parallel.toString());
+
+  }
+
+  public void testStatementSplitter()
+  {
+
+    final String script = "select 'a;b' from t;\n"
+                          + "-- comment;\n"
+                          + "update t set c = 1 /* ; */\n"
+                          + "go\n"
+                          + "delete from t where c = \"x;\"\r\n"
+                          + "  /  \r\n"
+                          + ";\n"
+                          + "select 1 / 2 from dual";
+    final StatementSplitter splitter = new StatementSplitter(new StringReader(script));
+    final List<String> statements = new ArrayList<String>();
+    final List<String> separators = new ArrayList<String>();
+    while (splitter.hasNext())
+    {
+      statements.add(splitter.next().trim());
+      separators.add(splitter.getSeparator());
+    }
+
+    assertEquals(4, statements.size());
+    assertEquals("select 'a;b' from t", statements.get(0));
+    assertEquals("-- comment;\nupdate t set c = 1 /* ; */",
+                 statements.get(1));
+    assertEquals("delete from t where c = \"x;\"", statements.get(2));
+    assertEquals("select 1 / 2 from dual", statements.get(3));
+    assertEquals(";", separators.get(0));
+    assertEquals("go", separators.get(1));
+    assertEquals("/", separators.get(2));
+    assertEquals("", separators.get(3));
+
+    // an exception reading the script is thrown as it was
+    final IOException readError = new IOException("disk error");
+    final Reader failing = new FilterReader(new StringReader(script))
+    {
+      @Override
+      public int read(char[] buffer, int offset, int length)
+        throws IOException
+      {
+        throw readError;
+      }
+    };
+    try
+    {
+      new SQLFormatter().formatScript(failing, new StringWriter(), 2);
+      fail("Read error not thrown");
+    }
+    catch (final IOException e)
+    {
+      assertSame(readError, e);
+    }
+
+  }
+
+  public void testStreamingFormat()
+    throws IOException
+  {
+
+    for (int i = 0; i < sqlOriginal.length; i++)
+    {
+      // read a character at a time, so that tokens and literals are
+      // split across reads
+      final Reader reader = new FilterReader(new StringReader(sqlOriginal[i]))
+      {
+        @Override
+        public int read(char[] buffer, int offset, int length)
+          throws IOException
+        {
+          return super.read(buffer, offset, Math.min(length, 1));
+        }
+      };
+      final StringWriter writer = new StringWriter();
+      new SQLFormatter().format(reader, writer);
+      assertEquals("Error streaming - " + (i + 1) + ".sql",
+                   new SQLFormatter().format(sqlOriginal[i]),
+                   writer.toString());
+    }
+
+  }
+
+  public void testFormatting()
+  {
+
+    for (int i = 0; i < sqlOriginal.length; i++)
+    {
+      String sqlStatement = toCStyleComments(sqlOriginal[i]);
+      String formattedSQL = new SQLFormatter().format(sqlOriginal[i]);
+
+      if (!stripWhitespace(sqlStatement)
+        .equalsIgnoreCase(stripWhitespace(formattedSQL)))
+      {
+        System.out
+          .println(compare(stripWhitespace(sqlStatement).toLowerCase(),
+                           stripWhitespace(formattedSQL).toLowerCase()));
+      }
+
+      assertEquals(stripWhitespace(sqlStatement).toLowerCase(),
+                   stripWhitespace(formattedSQL).toLowerCase());
+    }
+
+  }
+
+}
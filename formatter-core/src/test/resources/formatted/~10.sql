@@ -0,0 +1,20 @@
+/* accounts that are still open, newest first*/
+SELECT
+  a.id,
+  a.name/* name shown to the user*/
+  ,
+  a.created
+FROM
+  accounts a
+WHERE
+  a.active = 1 /* closed accounts are kept*/
+  AND
+  a.id IN
+  (SELECT
+      o.account_id
+    FROM
+      orders o
+  )
+/*  with orders*/
+ORDER BY
+  a.created desc
\ No newline at end of file
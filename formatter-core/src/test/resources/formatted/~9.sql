@@ -0,0 +1,17 @@
+SELECT
+  o.id,
+  c.name
+FROM
+  orders o
+  LEFT OUTER JOIN customers c
+  ON o.customer_id = c.id
+  RIGHT JOIN regions r
+  ON c.region_id = r.id
+WHERE
+  o.total > 100
+UNION ALL
+SELECT
+  a.id,
+  a.name
+FROM
+  archive a
\ No newline at end of file
@@ -0,0 +1,7 @@
+-- accounts that are still open, newest first
+select a.id, a.name -- name shown to the user
+, a.created
+from accounts a
+where a.active = 1 -- closed accounts are kept
+and a.id in (select o.account_id from orders o) --  with orders
+order by a.created desc
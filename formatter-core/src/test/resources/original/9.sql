@@ -0,0 +1,5 @@
+select o.id, c.name from orders o left outer join customers c on o.customer_id = c.id
+right join regions r on c.region_id = r.id
+where o.total > 100
+union all
+select a.id, a.name from archive a
\ No newline at end of file
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2004-2013, Sualeh Fatehi <sualeh@hotmail.com>
+ * This work is licensed under the Creative Commons Attribution-Noncommercial-No Derivative Works 3.0 License.
+ * To view a copy of this license, visit http://creativecommons.org/licenses/by-nc-nd/3.0/
+ * or send a letter to Creative Commons, 543 Howard Street, 5th Floor, San Francisco, California, 94105, USA.
+ */
+package simplesqlformatter;
+
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.swing.UIManager;
+
+import simplesqlformatter.formatter.SQLFormatterEditor;
+
+import com.jgoodies.looks.plastic.PlasticLookAndFeel;
+import com.jgoodies.looks.plastic.theme.LightGray;
+
+/**
+ * Shows the built-in editor. The command line interface loads this
+ * class by name, only when the editor is shown, so that the console
+ * does not need the editor, Swing or the look and feel.
+ *
+ * @author Sualeh Fatehi
+ */
+public final class EditorWindow
+{
+
+  private static final Logger LOGGER = Logger.getLogger(EditorWindow.class
+    .getName());
+
+  /**
+   * Sets the look and feel, and shows the editor.
+   *
+   * @param debug
+   *        Whether to show the debug window
+   */
+  public static void show(final boolean debug)
+  {
+    try
+    {
+      PlasticLookAndFeel.setPlasticTheme(new LightGray());
+      UIManager.setLookAndFeel(new PlasticLookAndFeel());
+    }
+    catch (final Exception e)
+    {
+      LOGGER.log(Level.WARNING, "Cannot set look and feel");
+    }
+
+    new SQLFormatterEditor(debug).setVisible(true);
+  }
+
+  private EditorWindow()
+  {
+  }
+
+}
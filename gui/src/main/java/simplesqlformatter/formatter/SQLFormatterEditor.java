@@ -81,6 +81,7 @@ public final class SQLFormatterEditor
   private final JTextArea textArea = new JTextArea(ROWS, COLUMNS);
   private final JTextArea debugArea = new JTextArea(ROWS, COLUMNS / 2);
   private final JLabel statusBar = new JLabel("Ready");
+  private final SQLFormatter formatter = new SQLFormatter();
 
   private static final Preferences preferences = Preferences
     .userNodeForPackage(SQLFormatterEditor.class);
@@ -347,19 +348,20 @@ public final class SQLFormatterEditor
   /**
    * Debug at the second stage of processing - SQL is tokenized.
    * 
-   * @param sql
-   *        SQL statement
+   * @param result
+   *        Result of formatting the SQL statement
    * @return Debug message
    */
-  private String debugGetTokens(final String sql)
+  private String debugGetTokens(final FormatResult result)
   {
 
-    final Token[] tokens = new SQLFormatter().parse(sql);
+    final List<Token> tokens = result.getTokens();
 
     final StringBuffer buffer = new StringBuffer();
-    for (int i = 0; i < tokens.length; i++)
+    buffer.append(result.getStats()).append("\n");
+    for (int i = 0; i < tokens.size(); i++)
     {
-      final Token token = tokens[i];
+      final Token token = tokens.get(i);
       buffer.append("[").append(i).append("] ").append(token).append("\n");
     }
 
@@ -370,9 +372,9 @@ public final class SQLFormatterEditor
   private void format()
   {
     final String originalSQL = textArea.getText();
-    final String formattedSQL = new SQLFormatter().format(originalSQL);
-    textArea.setText(formattedSQL);
-    debugArea.setText(debugGetTokens(originalSQL));
+    final FormatResult result = formatter.formatResult(originalSQL);
+    textArea.setText(result.getText());
+    debugArea.setText(debugGetTokens(result));
     statusBar.setText("Formatted SQL statement");
   }
 
@@ -1 +0,0 @@
-javaw -cp .:./lib/* simplesqlformatter.Main -window
\ No newline at end of file